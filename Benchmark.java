@@ -0,0 +1,786 @@
+import functions.*;
+import functions.basic.Log;
+import functions.threads.*;
+import com.sun.management.ThreadMXBean;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StreamTokenizer;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+public class Benchmark {
+
+    public static void main(String[] args) {
+        String name = args.length > 0 ? args[0] : "all";
+
+        if (name.equals("all") || name.equals("lookup")) {
+            lookup();
+        }
+        if (name.equals("all") || name.equals("integrate")) {
+            integrate();
+        }
+        if (name.equals("all") || name.equals("ranges")) {
+            ranges();
+        }
+        if (name.equals("all") || name.equals("parallel")) {
+            parallel();
+        }
+        if (name.equals("all") || name.equals("compile")) {
+            compile();
+        }
+        if (name.equals("all") || name.equals("ingest")) {
+            ingest();
+        }
+        if (name.equals("all") || name.equals("append")) {
+            append();
+        }
+        if (name.equals("all") || name.equals("shared")) {
+            shared();
+        }
+        if (name.equals("all") || name.equals("io")) {
+            io();
+        }
+        if (name.equals("all") || name.equals("text")) {
+            text();
+        }
+        if (name.equals("all") || name.equals("compress")) {
+            compress();
+        }
+        if (name.equals("all") || name.equals("serialize")) {
+            serialize();
+        }
+        if (name.equals("all") || name.equals("pipeline")) {
+            pipeline();
+        }
+        if (name.equals("all") || name.equals("executor")) {
+            executor();
+        }
+        if (name.equals("all") || name.equals("batch")) {
+            batch();
+        }
+        if (name.equals("all") || name.equals("sink")) {
+            sink();
+        }
+        if (name.equals("all") || name.equals("steal")) {
+            steal();
+        }
+    }
+
+    private static void lookup() {
+        int[] sizes = {1_000, 1_000_000, 10_000_000};
+        int queries = 1_000_000;
+
+        for (int n : sizes) {
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = Math.sin(i * 0.001);
+            }
+            TabulatedFunction f = new ArrayTabulatedFunction(0, n - 1, values);
+
+            double[] xs = randomPoints(queries, 0, n - 1);
+
+            double sink = 0;
+            for (int i = 0; i < queries; i++) {
+                sink += f.getFunctionValue(xs[i]);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                sink += f.getFunctionValue(xs[i]);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("lookup n=%d: %.1f ns/op (%s)%n", n, (double) elapsed / queries, sink);
+        }
+    }
+
+    private static void integrate() {
+        int n = 100_000;
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.sin(i * 0.001);
+        }
+
+        TabulatedFunction[] functions = {
+                new ArrayTabulatedFunction(0, n - 1, values),
+                new LinkedListTabulatedFunction(0, n - 1, values),
+                new DoubleArrayTabulatedFunction(0, n - 1, values)
+        };
+
+        for (TabulatedFunction f : functions) {
+            Functions.integrate(f, 0, n - 1, 0.5);
+
+            long start = System.nanoTime();
+            double result = Functions.integrate(f, 0, n - 1, 0.5);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("integrate %s n=%d: %.2f ms (%s)%n",
+                    f.getClass().getSimpleName(), n, elapsed / 1e6, result);
+        }
+    }
+
+    private static void ranges() {
+        int n = 1_000_000;
+        int queries = 1_000;
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.sin(i * 0.001);
+        }
+        TabulatedFunction f = new DoubleArrayTabulatedFunction(0, n - 1, values);
+        double[] bounds = randomPoints(2 * queries, 0, n - 1);
+
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            sum += Functions.integrateExact(f, Math.min(bounds[2 * i], bounds[2 * i + 1]),
+                    Math.max(bounds[2 * i], bounds[2 * i + 1]));
+        }
+        long exact = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        TabulatedIntegral integral = new TabulatedIntegral(f);
+        for (int i = 0; i < queries; i++) {
+            sum -= integral.integrate(Math.min(bounds[2 * i], bounds[2 * i + 1]),
+                    Math.max(bounds[2 * i], bounds[2 * i + 1]));
+        }
+        long prefix = System.nanoTime() - start;
+
+        System.out.printf("ranges n=%d x%d: exact %.2f ms, prefix sums %.2f ms (diff %s)%n",
+                n, queries, exact / 1e6, prefix / 1e6, sum);
+    }
+
+    private static void parallel() {
+        Function log = new functions.basic.Log(Math.E);
+        double step = 1e-6;
+
+        Functions.integrate(log, 1, 200, step);
+        long start = System.nanoTime();
+        double sequential = Functions.integrate(log, 1, 200, step);
+        long sequentialTime = System.nanoTime() - start;
+
+        Functions.integrateParallel(log, 1, 200, step);
+        start = System.nanoTime();
+        double parallel = Functions.integrateParallel(log, 1, 200, step);
+        long parallelTime = System.nanoTime() - start;
+
+        double single = Functions.integrateParallel(log, 1, 200, step, new ForkJoinPool(1), 0);
+
+        System.out.printf("parallel log [1,200] step=%s: sequential %.1f ms, parallel %.1f ms (%s, %s, 1 thread %s)%n",
+                step, sequentialTime / 1e6, parallelTime / 1e6, sequential, parallel, single);
+    }
+
+    private static void compile() {
+        Function tree = Functions.sum(
+                Functions.scale(Functions.composition(new functions.basic.Exp(), new functions.basic.Sin()), 2, 3),
+                Functions.mult(Functions.shift(new functions.basic.Cos(), 1, 0.5),
+                        Functions.power(new functions.basic.Log(10), 2)));
+        Function compiled = Functions.compile(tree);
+        double[] xs = randomPoints(1_000_000, 1, 100);
+
+        for (Function f : new Function[]{tree, compiled, tree, compiled}) {
+            double sink = 0;
+            long start = System.nanoTime();
+            for (double x : xs) {
+                sink += f.getFunctionValue(x);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("compile %s: %.1f ns/op (%s)%n",
+                    f == tree ? "interpreted" : "compiled", (double) elapsed / xs.length, sink);
+        }
+    }
+
+    private static void ingest() {
+        int n = 20_000;
+        double[] xs = randomPoints(n, 0, 1);
+
+        TabulatedFunction[] functions = {
+                new LinkedListTabulatedFunction(-1, 2, 2),
+                new SkipListTabulatedFunction(-1, 2, 2)
+        };
+
+        for (TabulatedFunction f : functions) {
+            long start = System.nanoTime();
+            for (double x : xs) {
+                try {
+                    f.addPoint(new FunctionPoint(x, x));
+                } catch (InappropriateFunctionPointException ignored) {
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("ingest %s: %d out-of-order points in %.1f ms%n",
+                    f.getClass().getSimpleName(), n, elapsed / 1e6);
+        }
+    }
+
+    private static void append() {
+        int n = 1_000_000;
+        ThreadMXBean threads =
+                (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        TabulatedFunction[] functions = {
+                new ArrayTabulatedFunction(0, 1, 2), new DoubleArrayTabulatedFunction(0, 1, 2)};
+        for (TabulatedFunction f : functions) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            try {
+                for (int i = 2; i < n; i++) {
+                    f.addPoint(new FunctionPoint(i, i));
+                }
+            } catch (InappropriateFunctionPointException e) {
+                throw new IllegalStateException(e);
+            }
+            long elapsed = System.nanoTime() - start;
+            bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+            System.out.printf("append %s %d points: %.1f ms, %.1f MB allocated (points themselves ~%.1f MB)%n",
+                    f.getClass().getSimpleName(), n, elapsed / 1e6, bytes / 1e6, n * 32 / 1e6);
+        }
+    }
+
+    private static void shared() {
+        int readers = 8;
+        int n = 10_000;
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.sin(i * 0.01);
+        }
+
+        TabulatedFunction synchronizedArray = new ArrayTabulatedFunction(0, n - 1, values) {
+            public synchronized double getFunctionValue(double x) {
+                return super.getFunctionValue(x);
+            }
+
+            public synchronized void setPointY(int index, double y) {
+                super.setPointY(index, y);
+            }
+        };
+        TabulatedFunction copyOnWrite = new CopyOnWriteTabulatedFunction(0, n - 1, values);
+        TabulatedFunction stamped = new StampedLockTabulatedFunction(new ArrayTabulatedFunction(0, n - 1, values));
+
+        String[] names = {"synchronized", "copy-on-write", "stamped lock"};
+        TabulatedFunction[] functions = {synchronizedArray, copyOnWrite, stamped};
+        for (int i = 0; i < functions.length; i++) {
+            long reads = runShared(functions[i], readers, n, 500);
+            System.out.printf("shared %s, %d readers + 1 writer: %.1f M reads/s%n",
+                    names[i], readers, reads / 0.5 / 1e6);
+        }
+    }
+
+    private static long runShared(TabulatedFunction f, int readers, int n, long millis) {
+        AtomicLong reads = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] threads = new Thread[readers + 1];
+
+        for (int t = 0; t < readers; t++) {
+            double[] xs = randomPoints(4096, 0, n - 1);
+            threads[t] = new Thread(() -> {
+                long count = 0;
+                double sink = 0;
+                while (running.get()) {
+                    for (double x : xs) {
+                        sink += f.getFunctionValue(x);
+                    }
+                    count += xs.length;
+                }
+                reads.addAndGet(count + (sink == 42 ? 1 : 0));
+            });
+        }
+        threads[readers] = new Thread(() -> {
+            int i = 0;
+            while (running.get()) {
+                f.setPointY(i++ % n, i);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            Thread.sleep(millis);
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return reads.get();
+    }
+
+    private static void io() {
+        int n = 10_000_000;
+        TabulatedFunction f = new DoubleArrayTabulatedFunction(0, n - 1, randomPoints(n, -1, 1));
+        double gigabytes = (4 + 16.0 * n) / 1e9;
+
+        try {
+            File file = File.createTempFile("benchmark", ".bin");
+            file.deleteOnExit();
+
+            // прежний способ: DataOutputStream прямо поверх файла, по одному значению за вызов
+            int baseline = 200_000;
+            long start = System.nanoTime();
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+                out.writeInt(baseline);
+                for (int i = 0; i < baseline; i++) {
+                    out.writeDouble(f.getPointX(i));
+                    out.writeDouble(f.getPointY(i));
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("io per-value DataOutputStream write: %.3f GB/s%n",
+                    (4 + 16.0 * baseline) / 1e9 / (elapsed / 1e9));
+
+            start = System.nanoTime();
+            TabulatedFunctions.outputTabulatedFunction(f, new FileOutputStream(file));
+            elapsed = System.nanoTime() - start;
+            System.out.printf("io stream write %d points: %.3f GB/s%n", n, gigabytes / (elapsed / 1e9));
+
+            start = System.nanoTime();
+            TabulatedFunction read = TabulatedFunctions.inputTabulatedFunction(new FileInputStream(file));
+            elapsed = System.nanoTime() - start;
+            System.out.printf("io stream read %d points: %.3f GB/s%n", read.getPointsCount(), gigabytes / (elapsed / 1e9));
+
+            start = System.nanoTime();
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                TabulatedFunctions.outputTabulatedFunction(f, channel);
+            }
+            elapsed = System.nanoTime() - start;
+            System.out.printf("io channel write %d points: %.3f GB/s%n", n, gigabytes / (elapsed / 1e9));
+
+            start = System.nanoTime();
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                read = TabulatedFunctions.inputTabulatedFunction(channel);
+            }
+            elapsed = System.nanoTime() - start;
+            System.out.printf("io channel read %d points: %.3f GB/s%n", read.getPointsCount(), gigabytes / (elapsed / 1e9));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void text() {
+        int n = 10_000_000;
+        TabulatedFunction f = new DoubleArrayTabulatedFunction(0, 1, randomPoints(n, -1, 1));
+        TabulatedFunctions.setTabulatedFunctionFactory(new DoubleArrayTabulatedFunction.DoubleArrayTabulatedFunctionFactory());
+
+        try {
+            File file = File.createTempFile("benchmark", ".txt");
+            file.deleteOnExit();
+
+            // прежний способ: PrintWriter и строка на каждую точку
+            long start = System.nanoTime();
+            try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+                pw.println(n);
+                for (int i = 0; i < n; i++) {
+                    pw.println(f.getPointX(i) + " " + f.getPointY(i));
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("text PrintWriter write %d lines: %.1f ms (%.1f MB)%n", n, elapsed / 1e6, file.length() / 1e6);
+
+            // прежний способ: StreamTokenizer (порядок вида 1e-10 он не понимает)
+            start = System.nanoTime();
+            try (Reader in = new BufferedReader(new FileReader(file))) {
+                StreamTokenizer tokenizer = new StreamTokenizer(in);
+                tokenizer.nextToken();
+                int count = (int) tokenizer.nval;
+                double[] ys = new double[count];
+                for (int i = 0; i < count; i++) {
+                    tokenizer.nextToken();
+                    tokenizer.nextToken();
+                    ys[i] = tokenizer.nval;
+                }
+            }
+            elapsed = System.nanoTime() - start;
+            System.out.printf("text StreamTokenizer read %d lines: %.1f ms%n", n, elapsed / 1e6);
+
+            start = System.nanoTime();
+            TabulatedFunctions.writeTabulatedFunction(f, new FileOutputStream(file));
+            elapsed = System.nanoTime() - start;
+            System.out.printf("text writeTabulatedFunction %d lines: %.1f ms (%.1f MB)%n", n, elapsed / 1e6, file.length() / 1e6);
+
+            start = System.nanoTime();
+            TabulatedFunction read;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+                read = TabulatedFunctions.readTabulatedFunction(in);
+            }
+            elapsed = System.nanoTime() - start;
+            System.out.printf("text readTabulatedFunction %d lines: %.1f ms, exact: %b%n",
+                    read.getPointsCount(), elapsed / 1e6, read.equals(f) && read.getPointY(n / 2) == f.getPointY(n / 2));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            TabulatedFunctions.setTabulatedFunctionFactory(new ArrayTabulatedFunction.ArrayTabulatedFunctionFactory());
+        }
+    }
+
+    private static void compress() {
+        int n = 1_000_000;
+        double[] smooth = new double[n];
+        double[] rounded = new double[n];
+        double[] single = new double[n];
+        for (int i = 0; i < n; i++) {
+            smooth[i] = Math.sin(i * 1e-4);
+            rounded[i] = Math.round(smooth[i] * 1000) / 1000.0;
+            single[i] = (float) Math.exp(-i * 1e-6);
+        }
+        FunctionPoint[] scattered = new FunctionPoint[n];
+        double[] xs = randomPoints(n, 0, 1);
+        Arrays.sort(xs);
+        for (int i = 0; i < n; i++) {
+            scattered[i] = new FunctionPoint(xs[i] + i, Math.cos(xs[i] + i));
+        }
+
+        String[] names = {"sin", "sin rounded", "float exp", "non-uniform cos"};
+        TabulatedFunction[] functions = {
+                new DoubleArrayTabulatedFunction(0, 100, smooth),
+                new DoubleArrayTabulatedFunction(0, 100, rounded),
+                new DoubleArrayTabulatedFunction(0, 100, single),
+                new DoubleArrayTabulatedFunction(scattered)
+        };
+
+        try {
+            File file = File.createTempFile("benchmark", ".tbz");
+            file.deleteOnExit();
+            for (int k = 0; k < functions.length; k++) {
+                long start = System.nanoTime();
+                TabulatedFunctions.outputCompressedTabulatedFunction(functions[k], new FileOutputStream(file));
+                long elapsed = System.nanoTime() - start;
+
+                CompressedTabulatedFunction compressed = new CompressedTabulatedFunction(file.toPath());
+                double[] queries = randomPoints(10_000, compressed.getLeftDomainBorder(), compressed.getRightDomainBorder());
+                long lookup = System.nanoTime();
+                double sink = 0;
+                for (double x : queries) {
+                    sink += compressed.getFunctionValue(x);
+                }
+                lookup = System.nanoTime() - lookup;
+
+                System.out.printf("compress %s: %.1f MB -> %.2f MB (%.1fx), write %.1f ms, random lookup %.1f us%s%n",
+                        names[k], (4 + 16.0 * n) / 1e6, file.length() / 1e6, (4 + 16.0 * n) / file.length(),
+                        elapsed / 1e6, lookup / 1e3 / queries.length, sink == 42 ? " " : "");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 10M точек в связном списке занимают около гигабайта: запускать с -Xmx4g
+    private static void serialize() {
+        int[] sizes = {1_000, 100_000, 1_000_000, 10_000_000};
+
+        try {
+            File file = File.createTempFile("benchmark", ".ser");
+            file.deleteOnExit();
+
+            for (int n : sizes) {
+                double[] values = randomPoints(n, -1, 1);
+                TabulatedFunctionFactory[] factories = {
+                        new ArrayTabulatedFunction.ArrayTabulatedFunctionFactory(),
+                        new DoubleArrayTabulatedFunction.DoubleArrayTabulatedFunctionFactory(),
+                        new LinkedListTabulatedFunction.LinkedListTabulatedFunctionFactory(),
+                        new SkipListTabulatedFunction.SkipListTabulatedFunctionFactory()
+                };
+
+                for (TabulatedFunctionFactory factory : factories) {
+                    TabulatedFunction f = factory.createTabulatedFunction(0, n - 1, values);
+                    String type = f.getClass().getSimpleName();
+
+                    long start = System.nanoTime();
+                    try (ObjectOutputStream out = new ObjectOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+                        out.writeObject(f);
+                    }
+                    long written = System.nanoTime() - start;
+                    f = null;
+
+                    start = System.nanoTime();
+                    Object read;
+                    try (ObjectInputStream in = new ObjectInputStream(
+                            new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+                        read = in.readObject();
+                    }
+                    long elapsed = System.nanoTime() - start;
+
+                    System.out.printf("serialize %s %d points: %.1f MB, write %.1f ms, read %.1f ms (%d points)%n",
+                            type, n, file.length() / 1e6, written / 1e6, elapsed / 1e6,
+                            ((TabulatedFunction) read).getPointsCount());
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void pipeline() {
+        int slotTasks = 300;
+        Task task = new Task();
+        task.setCount(slotTasks);
+        SemaphoreSlot slot = new SemaphoreSlot();
+        double elapsed = runThreads(new Generator(task, slot, ResultSink.NO_OP), new Integrator(task, slot, ResultSink.NO_OP));
+        System.out.printf("pipeline SemaphoreSlot 1+1: %.0f tasks/s%n", slotTasks / elapsed);
+
+        // дешёвые задания показывают накладные расходы самой передачи,
+        // случайные - поток заданий, как у Generator
+        IntegrationTask cheap = new IntegrationTask(new Log(2), 1, 2, 0.5);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[][] configs = {{1, 1}, {2, 2}, {1, cores}, {cores, cores}};
+        for (int[] config : configs) {
+            double rate = runPipeline(config[0], config[1], 2_000_000, () -> cheap);
+            System.out.printf("pipeline %d+%d, cheap tasks: %.2f M tasks/s%n", config[0], config[1], rate / 1e6);
+        }
+        for (int[] config : configs) {
+            double rate = runPipeline(config[0], config[1], 20_000, IntegrationTask::random);
+            System.out.printf("pipeline %d+%d, random tasks: %.0f tasks/s%n", config[0], config[1], rate);
+        }
+    }
+
+    private static double runPipeline(int producers, int consumers, long tasks, Supplier<IntegrationTask> source) {
+        return runPipeline(producers, consumers, tasks, source, ResultSink.NO_OP);
+    }
+
+    private static double runPipeline(int producers, int consumers, long tasks,
+                                      Supplier<IntegrationTask> source, ResultSink sink) {
+        IntegrationPipeline pipeline = new IntegrationPipeline(1024, producers, consumers, source, sink);
+        long start = System.nanoTime();
+        pipeline.start(tasks);
+        try {
+            pipeline.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            pipeline.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        return (pipeline.getCompletedCount() + pipeline.getFailedCount()) / elapsed;
+    }
+
+    // у каждого задания есть пауза 1 мс, как у Generator и Integrator, поэтому пропускная
+    // способность определяется тем, сколько заданий может ждать одновременно
+    private static void executor() {
+        int jobs = 10_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        IntegrationTask cheap = new IntegrationTask(new Log(2), 1, 2, 0.5);
+        Callable<IntegrationTask> job = () -> {
+            Thread.sleep(1);
+            return cheap;
+        };
+
+        String perTask = IntegrationScope.isVirtualThreadsAvailable() ? "virtual thread per job" : "platform thread per job";
+        String[] names = {"fixed pool of " + cores, "fixed pool of 200", perTask};
+        for (int i = 0; i < names.length; i++) {
+            ExecutorService executor = i == 0 ? Executors.newFixedThreadPool(cores)
+                    : i == 1 ? Executors.newFixedThreadPool(200)
+                    : IntegrationScope.newThreadPerTaskExecutor();
+            long start = System.nanoTime();
+            long completed;
+            try (IntegrationScope scope = new IntegrationScope(executor, ResultSink.NO_OP)) {
+                for (int j = 0; j < jobs; j++) {
+                    scope.fork(job);
+                }
+                scope.join();
+                completed = scope.getCompletedCount();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                executor.shutdown();
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("executor %s, %d jobs: %.0f jobs/s%n", names[i], completed, completed / elapsed);
+        }
+    }
+
+    private static void batch() {
+        int count = 100_000;
+        // N мест, пачки по K, P генераторов и столько же интеграторов
+        int[][] configs = {{1, 1, 1}, {16, 1, 1}, {16, 16, 1}, {256, 64, 1}, {4096, 256, 1}, {256, 64, 2}, {256, 64, 4}};
+        for (int[] config : configs) {
+            int pairs = config[2];
+            Task task = new Task();
+            task.setCount(count / pairs);
+            BatchSemaphoreSlot slot = new BatchSemaphoreSlot(config[0]);
+            Thread[] threads = new Thread[2 * pairs];
+            for (int i = 0; i < pairs; i++) {
+                threads[2 * i] = new Generator(task, slot, config[1], ResultSink.NO_OP);
+                threads[2 * i + 1] = new Integrator(task, slot, config[1], ResultSink.NO_OP);
+            }
+            double elapsed = runThreads(threads);
+            if (elapsed < 0) {
+                return;
+            }
+            System.out.printf("batch N=%d K=%d %d+%d: %.0f tasks/s, %s%n",
+                    config[0], config[1], pairs, pairs, slot.getDrainedCount() / elapsed, slot);
+        }
+    }
+
+    // время работы потоков в секундах или -1, если ожидание прервано
+    private static double runThreads(Thread... threads) {
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    // один и тот же поток результатов через разные приёмники; печать на консоль
+    // идёт в пустой поток, так что измеряется только форматирование и блокировка System.out
+    private static void sink() {
+        int tasks = 500_000;
+        IntegrationTask cheap = new IntegrationTask(new Log(2), 1, 2, 0.5);
+        PrintStream console = System.out;
+        double rate;
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            rate = runPipeline(1, 1, tasks, () -> cheap, ResultSink.CONSOLE);
+        } finally {
+            System.setOut(console);
+        }
+        System.out.printf("sink console (printf): %.2f M tasks/s%n", rate / 1e6);
+
+        rate = runPipeline(1, 1, tasks, () -> cheap, ResultSink.NO_OP);
+        System.out.printf("sink no-op: %.2f M tasks/s%n", rate / 1e6);
+
+        AggregateResultSink aggregate = new AggregateResultSink();
+        rate = runPipeline(1, 1, tasks, () -> cheap, aggregate);
+        System.out.printf("sink aggregate: %.2f M tasks/s%n  %s%n", rate / 1e6, aggregate);
+
+        File file = new File("sink-bench.txt");
+        try (FileResultSink fileSink = new FileResultSink(file.toPath())) {
+            rate = runPipeline(1, 1, tasks, () -> cheap, fileSink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.printf("sink file: %.2f M tasks/s (%d MB)%n", rate / 1e6, file.length() >> 20);
+        file.delete();
+    }
+
+    // смесь из дешёвых заданий (1000 шагов) и каждого двухсотого в тысячу раз дороже,
+    // поступающих с постоянной частотой; задержка считается от постановки задания до результата
+    // задержка считается отдельно для дешёвых и дорогих заданий: дорогие - в SPLIT_FACTOR раз
+    // дороже медианы своего набора. Перехват работы должен держать хвост дешёвых заданий ровным
+    private static void steal() {
+        int tasks = 5_000;
+        long intervalNanos = 400_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int workers = Math.max(4, cores);
+
+        IntegrationTask[] skewed = new IntegrationTask[tasks];
+        IntegrationTask[] generated = new IntegrationTask[tasks];
+        Random rnd = new Random(42);
+        for (int i = 0; i < tasks; i++) {
+            skewed[i] = new IntegrationTask(new Log(2), 1, 11, i % 200 == 0 ? 0.00001 : 0.01);
+            generated[i] = IntegrationTask.random(rnd);
+        }
+
+        String[] mixes = {"skewed 1000/1000000 steps", "Generator mix"};
+        IntegrationTask[][] mixTasks = {skewed, generated};
+        for (int m = 0; m < mixes.length; m++) {
+            IntegrationTask[] mix = mixTasks[m];
+            double[] costs = new double[tasks];
+            for (int i = 0; i < tasks; i++) {
+                costs[i] = IntegrationScheduler.cost(mix[i]);
+            }
+            Arrays.sort(costs);
+            double cutoff = costs[tasks / 2] * IntegrationScheduler.SPLIT_FACTOR;
+
+            String[] policies = {"whole tasks", "split above " + (1 << 16) + " steps", "split by median"};
+            for (int p = 0; p < policies.length; p++) {
+                LatencyHistogram cheap = new LatencyHistogram();
+                LatencyHistogram expensive = new LatencyHistogram();
+                ResultSink sink = new ResultSink() {
+                    public void source(IntegrationTask task) {
+                    }
+
+                    public void result(IntegrationTask task, double result, long nanos) {
+                        (IntegrationScheduler.cost(task) > cutoff ? expensive : cheap).record(nanos);
+                    }
+
+                    public void error(IntegrationTask task, IllegalArgumentException e) {
+                    }
+                };
+
+                ForkJoinPool pool = new ForkJoinPool(workers);
+                long start = System.nanoTime();
+                IntegrationScheduler scheduler = p == 0 ? new IntegrationScheduler(pool, Long.MAX_VALUE, sink)
+                        : p == 1 ? new IntegrationScheduler(pool, 1 << 16, sink)
+                        : new IntegrationScheduler(pool, sink);
+                try (scheduler) {
+                    for (int j = 0; j < tasks; j++) {
+                        long due = start + j * intervalNanos;
+                        while (System.nanoTime() < due) {
+                            LockSupport.parkNanos(due - System.nanoTime());
+                        }
+                        scheduler.submit(mix[j]);
+                    }
+                    scheduler.awaitQuiescence(1, TimeUnit.HOURS);
+                } finally {
+                    pool.shutdown();
+                }
+                double elapsed = (System.nanoTime() - start) / 1e9;
+                System.out.printf("steal %s, %s, %d workers on %d cores, %.0f tasks/s offered: %.1f s, "
+                                + "%d split (threshold %d)%n  cheap (%d): %s%n  expensive (%d): %s%n",
+                        mixes[m], policies[p], workers, cores, 1e9 / intervalNanos, elapsed,
+                        scheduler.getSplitCount(), scheduler.getSplitCost(),
+                        cheap.getCount(), cheap, expensive.getCount(), expensive);
+            }
+        }
+    }
+
+    private static double[] randomPoints(int count, double left, double right) {
+        Random rnd = new Random(42);
+        double[] xs = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = left + (right - left) * rnd.nextDouble();
+        }
+        return xs;
+    }
+}
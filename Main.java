@@ -3,6 +3,7 @@ import functions.basic.*;
 import functions.meta.*;
 import java.io.*;
 import functions.threads.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
 
@@ -24,9 +25,80 @@ public class Main {
         tf = TabulatedFunctions.tabulate(cos, 0, Math.PI, 5);
         System.out.println(tf.getClass());
 
+        TabulatedFunctions.setTabulatedFunctionFactory(new DoubleArrayTabulatedFunction.DoubleArrayTabulatedFunctionFactory());
+        TabulatedFunction df = TabulatedFunctions.tabulate(cos, 0, Math.PI, 5);
+        System.out.println(df.getClass());
+        System.out.println(df.equals(tf) + " " + (df.hashCode() == tf.hashCode()));
+
 
         TabulatedFunction rf = TabulatedFunctions.createTabulatedFunction(ArrayTabulatedFunction.class, 0, 10, 3);
         System.out.println(rf.getClass());
+
+        // параллельное интегрирование связного списка должно совпадать с последовательным бит в бит
+        double[] wave = new double[20_001];
+        for (int i = 0; i < wave.length; i++) wave[i] = 100 * Math.sin(i * 0.01);
+        TabulatedFunction waveList = new LinkedListTabulatedFunction(0, 200, wave);
+        double sequential = Functions.integrate(waveList, 0.5, 199.5, 1e-4);
+        ForkJoinPool pool = new ForkJoinPool(8);
+        boolean same = true;
+        for (int run = 0; run < 20; run++) {
+            same &= Functions.integrateParallel(waveList, 0.5, 199.5, 1e-4, pool, 1) == sequential;
+        }
+        pool.shutdown();
+        System.out.println(sequential + " " + same);
+
+        System.out.println(Functions.integrateAdaptive(new Exp(), 0, 1, 1e-10, 0, 10_000));
+        System.out.println(Functions.integrateAdaptive(new Log(Math.E), 1, 200, 1e-8, 1e-12, 10_000));
+
+        Function redundant = Functions.sum(
+                Functions.scale(Functions.scale(Functions.power(new Sin(), 1), 0.5, 3), 0.25, 2),
+                Functions.composition(new Exp(), new Log(Math.E)));
+        Function simplified = Functions.simplify(redundant);
+        System.out.println(FunctionSimplifier.countNodes(redundant) + " -> " + FunctionSimplifier.countNodes(simplified)
+                + " " + redundant.getFunctionValue(2) + " " + simplified.getFunctionValue(2)
+                + " " + redundant.getFunctionValue(-1) + " " + simplified.getFunctionValue(-1));
+
+        try {
+            File file = File.createTempFile("cos", ".bin");
+            file.deleteOnExit();
+            TabulatedFunctions.outputTabulatedFunction(tf, new FileOutputStream(file));
+            TabulatedFunction mf = new MappedTabulatedFunction(file.toPath());
+            System.out.println(mf + " " + mf.equals(tf));
+
+            // интеграл по файлу за один проход, порциями по 2 точки
+            double[] acc = {0, Double.NaN, Double.NaN};
+            try (PointChunkReader reader = PointChunkReader.binary(new FileInputStream(file), 2)) {
+                reader.forEachChunk(chunk -> {
+                    for (int i = 0; i < chunk.getLength(); i++) {
+                        double x = chunk.getX(i), y = chunk.getY(i);
+                        if (!Double.isNaN(acc[1])) acc[0] += (x - acc[1]) * (y + acc[2]) / 2;
+                        acc[1] = x;
+                        acc[2] = y;
+                    }
+                });
+            }
+            System.out.println(acc[0] + " " + Functions.integrate(tf, 0, Math.PI, 0.01));
+
+            // длинный связный список проходит сериализацию без переполнения стека
+            TabulatedFunction longList = new LinkedListTabulatedFunction(0, 1, new double[200_000]);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(longList);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                System.out.println(longList.equals(in.readObject()) + " " + bytes.size());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+
+            File compressed = File.createTempFile("cos", ".tbz");
+            compressed.deleteOnExit();
+            TabulatedFunctions.outputCompressedTabulatedFunction(tf, new FileOutputStream(compressed));
+            TabulatedFunction cf = new CompressedTabulatedFunction(compressed.toPath());
+            System.out.println(cf.equals(tf) + " " + cf.getFunctionValue(1) + " " + tf.getFunctionValue(1));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
 
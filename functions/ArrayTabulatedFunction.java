@@ -4,14 +4,19 @@ import java.io.Externalizable;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 public class ArrayTabulatedFunction implements TabulatedFunction, Externalizable {
 
     private static final double EPSILON = 1e-10;
+    private static final double DEFAULT_GROWTH_FACTOR = 2.0;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
 
+    // point.length — ёмкость массива, занято только первые pointsCount элементов
     private FunctionPoint[] point;
     private int pointsCount;
+    private double growthFactor = DEFAULT_GROWTH_FACTOR;
 
     public ArrayTabulatedFunction() {
     }
@@ -58,6 +63,12 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Externalizable
 
 
     public ArrayTabulatedFunction(FunctionPoint[] points) {
+        this(points, points.length);
+    }
+
+
+    // массив выделяется сразу нужной ёмкости, без копирования при последующем росте
+    public ArrayTabulatedFunction(FunctionPoint[] points, int initialCapacity) {
         if (points.length < 2)
             throw new IllegalArgumentException("Количество точек должно быть ≥ 2");
 
@@ -66,7 +77,10 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Externalizable
                 throw new IllegalArgumentException("Точки должны быть упорядочены по X");
         }
 
-        this.point = new FunctionPoint[points.length];
+        if (initialCapacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("слишком большая ёмкость");
+
+        this.point = new FunctionPoint[Math.max(points.length, initialCapacity)];
         for (int i = 0; i < points.length; i++) {
             this.point[i] = new FunctionPoint(points[i]);
         }
@@ -75,6 +89,42 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Externalizable
     }
 
 
+    public double getGrowthFactor() {
+        return growthFactor;
+    }
+
+
+    public void setGrowthFactor(double growthFactor) {
+        if (!(growthFactor > 1))
+            throw new IllegalArgumentException("коэффициент роста должен быть больше 1");
+
+        this.growthFactor = growthFactor;
+    }
+
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= point.length) return;
+        if (minCapacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("слишком большая ёмкость");
+
+        long grown = (long) (point.length * growthFactor);
+        int capacity = (int) Math.min(MAX_CAPACITY, Math.max(minCapacity, grown));
+
+        FunctionPoint[] newPoint = new FunctionPoint[capacity];
+        System.arraycopy(point, 0, newPoint, 0, pointsCount);
+        point = newPoint;
+    }
+
+
+    public void trimToSize() {
+        if (point.length == pointsCount) return;
+
+        FunctionPoint[] newPoint = new FunctionPoint[pointsCount];
+        System.arraycopy(point, 0, newPoint, 0, pointsCount);
+        point = newPoint;
+    }
+
+
     public double getLeftDomainBorder() {
         return point[0].getX();
     }
@@ -89,24 +139,47 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Externalizable
         if (x < getLeftDomainBorder() || x > getRightDomainBorder())
             return Double.NaN;
 
-        for (int i = 0; i < pointsCount - 1; i++) {
-            double x1 = point[i].getX();
-            double y1 = point[i].getY();
-            double x2 = point[i + 1].getX();
-            double y2 = point[i + 1].getY();
+        int i = findSegment(x);
 
-            if (Math.abs(x - x1) < EPSILON) return y1;
-            if (Math.abs(x - x2) < EPSILON) return y2;
+        // самая левая точка в пределах EPSILON, как при прежнем линейном проходе
+        int j = i;
+        while (j > 0 && x - point[j - 1].getX() < EPSILON) {
+            j--;
+        }
+        if (Math.abs(x - point[j].getX()) < EPSILON) return point[j].getY();
 
-            if (x > x1 && x < x2) {
-                return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
-            }
+        double x1 = point[i].getX();
+        double y1 = point[i].getY();
+        double x2 = point[i + 1].getX();
+        double y2 = point[i + 1].getY();
+
+        if (Math.abs(x - x2) < EPSILON) return y2;
+
+        if (x > x1 && x < x2) {
+            return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
         }
 
         return Double.NaN;
     }
 
 
+    private int findSegment(double x) {
+        int low = 0;
+        int high = pointsCount - 2;
+
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (point[mid].getX() <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+
     public int getPointsCount() {
         return pointsCount;
     }
@@ -181,39 +254,89 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Externalizable
             throw new FunctionPointIndexOutOfBoundsException("Неверный индекс");
         }
 
-        FunctionPoint[] newPoint = new FunctionPoint[pointsCount - 1];
-        System.arraycopy(point, 0, newPoint, 0, index);
-        System.arraycopy(point, index + 1, newPoint, index, pointsCount - index - 1);
-
-        point = newPoint;
-        pointsCount--;
+        System.arraycopy(point, index + 1, point, index, pointsCount - index - 1);
+        point[--pointsCount] = null;
     }
 
 
     public void addPoint(FunctionPoint p) throws InappropriateFunctionPointException {
         double x = p.getX();
 
-        for (int i = 0; i < pointsCount; i++) {
-            if (Math.abs(point[i].getX() - x) < EPSILON)
-                throw new InappropriateFunctionPointException("точка с таким x уже существует");
+        // первая точка с x не меньше нового; совпадать может только она или предыдущая
+        int low = 0;
+        int high = pointsCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (point[mid].getX() < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
+        int i = low;
+
+        if ((i > 0 && Math.abs(point[i - 1].getX() - x) < EPSILON)
+                || (i < pointsCount && Math.abs(point[i].getX() - x) < EPSILON))
+            throw new InappropriateFunctionPointException("точка с таким x уже существует");
 
-        FunctionPoint[] newPoints = new FunctionPoint[pointsCount + 1];
-        int i = 0;
+        ensureCapacity(pointsCount + 1);
+        System.arraycopy(point, i, point, i + 1, pointsCount - i);
+        point[i] = new FunctionPoint(p);
+        pointsCount++;
+    }
 
-        while (i < pointsCount && point[i].getX() < x) {
-            newPoints[i] = point[i];
-            i++;
+
+    // сначала проверяются все точки пакета, чтобы при ошибке функция не изменилась;
+    // затем массив растёт по общему правилу и слияние идёт с конца прямо в нём
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        FunctionPoint[] batch = TabulatedFunctions.prepareBatch(points);
+        for (FunctionPoint p : batch) {
+            if (TabulatedFunctions.containsX(this, p.getX()))
+                throw new InappropriateFunctionPointException("точка с таким x уже существует");
         }
+        if ((long) pointsCount + batch.length > MAX_CAPACITY)
+            throw new IllegalArgumentException("слишком большая ёмкость");
+
+        ensureCapacity(pointsCount + batch.length);
+
+        int i = pointsCount - 1;
+        int j = batch.length - 1;
+        for (int k = pointsCount + batch.length - 1; j >= 0; k--) {
+            if (i >= 0 && point[i].getX() > batch[j].getX()) {
+                point[k] = point[i--];
+            } else {
+                point[k] = batch[j--];
+            }
+        }
+        pointsCount += batch.length;
+    }
+
 
-        newPoints[i] = new FunctionPoint(p);
+    public void deletePoints(int fromIndex, int toIndex) {
+        TabulatedFunctions.checkRange(fromIndex, toIndex, pointsCount, 2);
 
-        for (int j = i; j < pointsCount; j++) {
-            newPoints[j + 1] = point[j];
+        int count = pointsCount - (toIndex - fromIndex);
+        System.arraycopy(point, toIndex, point, fromIndex, pointsCount - toIndex);
+        Arrays.fill(point, count, pointsCount, null);
+        pointsCount = count;
+    }
+
+
+    public void deletePoints(int[] indices) {
+        int[] sorted = TabulatedFunctions.prepareIndices(indices, pointsCount, 2);
+
+        int j = 0;
+        int k = 0;
+        for (int i = 0; i < pointsCount; i++) {
+            if (j < sorted.length && sorted[j] == i) {
+                j++;
+            } else {
+                point[k++] = point[i];
+            }
         }
 
-        point = newPoints;
-        pointsCount++;
+        Arrays.fill(point, k, pointsCount, null);
+        pointsCount = k;
     }
 
 
@@ -235,6 +358,7 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Externalizable
             throw new IOException("Недостаточно точек для создания функции");
         }
 
+        // точки сразу становятся собственным массивом функции, без промежуточной копии
         FunctionPoint[] points = new FunctionPoint[size];
 
         for (int i = 0; i < size; i++) {
@@ -243,17 +367,8 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Externalizable
             points[i] = new FunctionPoint(x, y);
         }
 
-        initFromPoints(points);
-    }
-
-
-    private void initFromPoints(FunctionPoint[] points) {
-        this.pointsCount = points.length;
-        this.point = new FunctionPoint[points.length];
-
-        for (int i = 0; i < points.length; i++) {
-            this.point[i] = new FunctionPoint(points[i]);
-        }
+        this.point = points;
+        this.pointsCount = size;
     }
     public String toString() {
         StringBuilder sb = new StringBuilder("{");
@@ -284,8 +399,8 @@ public class ArrayTabulatedFunction implements TabulatedFunction, Externalizable
             return true;
         }
 
-        if (o instanceof LinkedListTabulatedFunction) {
-            LinkedListTabulatedFunction other = (LinkedListTabulatedFunction) o;
+        if (o instanceof TabulatedFunction) {
+            TabulatedFunction other = (TabulatedFunction) o;
 
             if (this.pointsCount != other.getPointsCount()) return false;
 
@@ -0,0 +1,664 @@
+package functions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Табулированная функция только для чтения, хранящаяся в сжатом поблочном формате
+// (см. TabulatedFunctions.outputCompressedTabulatedFunction). Точки разбиты на блоки по blockSize;
+// каждый блок распаковывается независимо, поэтому для доступа к точке или вычисления значения
+// распаковывается один блок (последний распакованный запоминается). Не потокобезопасна.
+//
+// Формат (версия 1, big-endian):
+//   int MAGIC, byte VERSION, byte флаги (бит 0 - равномерная сетка), int количество точек,
+//   int blockSize, double левый x, double правый x, int количество блоков,
+//   по каждому блоку double первый x и double первый y, long смещения начала блоков и конца данных,
+//   затем блоки. Блок - поток битов: 2 бита - предсказатель y, 1 бит - способ записи XOR;
+//   если сетка неравномерная, x как 64 бита первого значения и далее вторые разности
+//   битовых представлений; y как 64 бита первого значения и далее XOR с предсказанием:
+//   0 - совпало; 10 - значащие биты в прежнем окне; 11 - новое окно и значащие биты.
+//   Окно GORILLA задаётся ведущими и хвостовыми нулями (6 + 6 бит) и выгодно для значений
+//   с короткой мантиссой (например, float); окно LEADING - только ведущими нулями (6 бит):
+//   у вычисленных double хвостовых нулей почти нет, и окно из-за них менялось бы на каждой точке.
+public class CompressedTabulatedFunction implements TabulatedFunction {
+
+    static final int MAGIC = 0x54424C5A;
+    static final byte VERSION = 1;
+    static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    private static final double EPSILON = 1e-10;
+    private static final int UNIFORM = 1;
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 4 + 4 + 8 + 8 + 4;
+    // прогноз y: предыдущее значение, продолжение прямой по двум или параболы по трём предыдущим
+    private static final int PREVIOUS = 0;
+    private static final int LINEAR = 1;
+    private static final int QUADRATIC = 2;
+    private static final int GORILLA = 0;
+    private static final int LEADING = 1;
+    private static final int WINDOW_SLACK = 2;
+
+    private final ByteBuffer data;
+    private final int pointsCount;
+    private final int blockSize;
+    private final boolean uniform;
+    private final double leftX;
+    private final double rightX;
+    private final double step;
+    private final double[] firstXs;
+    private final double[] firstYs;
+    private final long[] offsets;
+
+    private int cachedBlock = -1;
+    private final double[] blockXs;
+    private final double[] blockYs;
+
+    public CompressedTabulatedFunction(Path file) throws IOException {
+        this(map(file));
+    }
+
+    public CompressedTabulatedFunction(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Неверный формат данных");
+        }
+        if (data.get(4) != VERSION) {
+            throw new IOException("Неподдерживаемая версия формата: " + data.get(4));
+        }
+        uniform = (data.get(5) & UNIFORM) != 0;
+        pointsCount = data.getInt(6);
+        blockSize = data.getInt(10);
+        leftX = data.getDouble(14);
+        rightX = data.getDouble(22);
+        int blockCount = data.getInt(30);
+
+        if (pointsCount < 2) {
+            throw new IOException("Недостаточно точек для создания функции");
+        }
+        // блок длиннее функции запись не создаёт; размер проверяется до выделения буферов блока
+        if (blockSize < 1 || blockSize > pointsCount
+                || blockCount != (pointsCount + blockSize - 1L) / blockSize
+                || data.limit() < HEADER_SIZE + blockCount * 24L + 8) {
+            throw new IOException("Повреждён заголовок");
+        }
+
+        step = (rightX - leftX) / (pointsCount - 1);
+        firstXs = new double[blockCount];
+        firstYs = new double[blockCount];
+        offsets = new long[blockCount + 1];
+        int position = HEADER_SIZE;
+        for (int b = 0; b < blockCount; b++) {
+            firstXs[b] = data.getDouble(position);
+            firstYs[b] = data.getDouble(position + 8);
+            position += 16;
+        }
+        for (int b = 0; b <= blockCount; b++) {
+            offsets[b] = data.getLong(position);
+            position += 8;
+        }
+        if (offsets[blockCount] > data.limit()) {
+            throw new IOException("Данные обрезаны");
+        }
+
+        blockXs = new double[blockSize];
+        blockYs = new double[blockSize];
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Файл больше 2 ГБ");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public int getBlockCount() {
+        return firstXs.length;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public boolean isUniform() {
+        return uniform;
+    }
+
+    // распаковывает блок в chunk (ёмкость не меньше getBlockSize())
+    public void readBlock(int block, PointChunk chunk) {
+        if (block < 0 || block >= firstXs.length)
+            throw new IndexOutOfBoundsException("неверный номер блока: " + block);
+        if (chunk.getCapacity() < blockSize)
+            throw new IllegalArgumentException("Порция меньше блока");
+
+        chunk.length = decode(block, chunk.xs, chunk.ys);
+        chunk.offset = block * blockSize;
+    }
+
+    private int decode(int block, double[] xs, double[] ys) {
+        int first = block * blockSize;
+        int length = Math.min(blockSize, pointsCount - first);
+        BitInput in = new BitInput(data, (int) offsets[block], (int) offsets[block + 1]);
+        int predictor = (int) in.read(2);
+        int coding = (int) in.read(1);
+
+        if (uniform) {
+            for (int i = 0; i < length; i++) {
+                xs[i] = leftX + step * (first + i);
+            }
+        } else {
+            long bits = in.read(64);
+            xs[0] = Double.longBitsToDouble(bits);
+            long delta = 0;
+            for (int i = 1; i < length; i++) {
+                long zigzag = in.read(1) == 0 ? 0 : in.read((int) in.read(6) + 1);
+                delta += (zigzag >>> 1) ^ -(zigzag & 1);
+                bits += delta;
+                xs[i] = Double.longBitsToDouble(bits);
+            }
+        }
+
+        long previous = in.read(64);
+        ys[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < length; i++) {
+            long bits = predict(predictor, ys, i, previous);
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(6);
+                    trailing = coding == GORILLA ? 64 - leading - ((int) in.read(6) + 1) : 0;
+                }
+                bits ^= in.read(64 - leading - trailing) << trailing;
+            }
+            ys[i] = Double.longBitsToDouble(bits);
+            previous = bits;
+        }
+        return length;
+    }
+
+    private void load(int index) {
+        int block = index / blockSize;
+        if (block != cachedBlock) {
+            decode(block, blockXs, blockYs);
+            cachedBlock = block;
+        }
+    }
+
+    // первые x и y блока есть в заголовке: переход через границу блока не требует распаковки
+    private double x(int index) {
+        if (uniform) {
+            return leftX + step * index;
+        }
+        if (index % blockSize == 0) {
+            return firstXs[index / blockSize];
+        }
+        load(index);
+        return blockXs[index % blockSize];
+    }
+
+    private double y(int index) {
+        if (index % blockSize == 0) {
+            return firstYs[index / blockSize];
+        }
+        load(index);
+        return blockYs[index % blockSize];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("неверный индекс");
+    }
+
+    public double getLeftDomainBorder() {
+        return firstXs[0];
+    }
+
+    public double getRightDomainBorder() {
+        return x(pointsCount - 1);
+    }
+
+    // сначала блок по таблице первых x, затем точка внутри блока
+    private int findSegment(double x) {
+        int low = 0;
+        int high = firstXs.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firstXs[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        // последний блок может состоять из одной последней точки
+        low = Math.min(low * blockSize, pointsCount - 2);
+        high = Math.min(low + blockSize - 1, pointsCount - 2);
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (x(mid) <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder())
+            return Double.NaN;
+
+        int i = findSegment(x);
+
+        int j = i;
+        while (j > 0 && x - x(j - 1) < EPSILON) {
+            j--;
+        }
+        if (Math.abs(x - x(j)) < EPSILON) return y(j);
+
+        double x1 = x(i);
+        double y1 = y(i);
+        double x2 = x(i + 1);
+        double y2 = y(i + 1);
+
+        if (Math.abs(x - x2) < EPSILON) return y2;
+
+        if (x > x1 && x < x2) {
+            return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+        }
+
+        return Double.NaN;
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(x(index), y(index));
+    }
+
+    public double getPointX(int index) {
+        checkIndex(index);
+        return x(index);
+    }
+
+    public double getPointY(int index) {
+        checkIndex(index);
+        return y(index);
+    }
+
+    public void setPoint(int index, FunctionPoint p) {
+        throw new UnsupportedOperationException("Сжатая функция доступна только для чтения");
+    }
+
+    public void setPointX(int index, double x) {
+        throw new UnsupportedOperationException("Сжатая функция доступна только для чтения");
+    }
+
+    public void setPointY(int index, double y) {
+        throw new UnsupportedOperationException("Сжатая функция доступна только для чтения");
+    }
+
+    public void addPoint(FunctionPoint p) {
+        throw new UnsupportedOperationException("Сжатая функция доступна только для чтения");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Сжатая функция доступна только для чтения");
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+
+        for (int i = 0; i < pointsCount; i++) {
+            sb.append("(").append(x(i)).append("; ").append(y(i)).append(")");
+            if (i < pointsCount - 1)
+                sb.append(", ");
+        }
+
+        sb.append("}");
+        return sb.toString();
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TabulatedFunction)) return false;
+
+        TabulatedFunction other = (TabulatedFunction) o;
+
+        if (this.pointsCount != other.getPointsCount()) return false;
+
+        for (int i = 0; i < pointsCount; i++) {
+            if (!this.getPoint(i).equals(other.getPoint(i)))
+                return false;
+        }
+        return true;
+    }
+
+    public int hashCode() {
+        int hash = pointsCount;
+
+        for (int i = 0; i < pointsCount; i++) {
+            long x = Double.doubleToLongBits(x(i));
+            long y = Double.doubleToLongBits(y(i));
+
+            hash ^= (int)(x ^ (x >>> 32));
+            hash ^= (int)(y ^ (y >>> 32));
+        }
+
+        return hash;
+    }
+
+    public Object clone() throws CloneNotSupportedException {
+        throw new CloneNotSupportedException("Сжатая функция не копируется");
+    }
+
+    public Iterator<FunctionPoint> iterator() {
+        return new Iterator<FunctionPoint>() {
+            private int index = 0;
+
+            public boolean hasNext() {
+                return index < pointsCount;
+            }
+
+            public FunctionPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FunctionPoint p = new FunctionPoint(x(index), y(index));
+                index++;
+                return p;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    // распаковывает все точки в новую функцию, созданную фабрикой TabulatedFunctions
+    TabulatedFunction toTabulatedFunction() {
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        for (int b = 0; b < firstXs.length; b++) {
+            int first = b * blockSize;
+            int length = decode(b, blockXs, blockYs);
+            System.arraycopy(blockXs, 0, xs, first, length);
+            System.arraycopy(blockYs, 0, ys, first, length);
+        }
+        cachedBlock = firstXs.length - 1;
+
+        if (uniform) {
+            return TabulatedFunctions.createTabulatedFunction(leftX, rightX, ys);
+        }
+        FunctionPoint[] points = new FunctionPoint[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            points[i] = new FunctionPoint(xs[i], ys[i]);
+        }
+        return TabulatedFunctions.createTabulatedFunction(points);
+    }
+
+    static void write(TabulatedFunction function, OutputStream out, int blockSize) throws IOException {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Размер блока должен быть положительным");
+
+        int count = function.getPointsCount();
+        // больше одного блока на всю функцию не нужно, а без ограничения буферы блока
+        // выделялись бы по заказанному размеру, и count + blockSize переполнялось бы
+        blockSize = Math.min(blockSize, count);
+        int blockCount = (int) ((count + blockSize - 1L) / blockSize);
+        double left = function.getPointX(0);
+        double right = function.getPointX(count - 1);
+        boolean uniform = isUniform(function, left, right);
+
+        double[] xs = new double[blockSize];
+        double[] ys = new double[blockSize];
+        double[] firstXs = new double[blockCount];
+        double[] firstYs = new double[blockCount];
+        long[] offsets = new long[blockCount + 1];
+        BitOutput blocks = new BitOutput();
+        BitOutput[] candidates = {new BitOutput(), new BitOutput()};
+
+        long start = HEADER_SIZE + blockCount * 24L + 8;
+        for (int b = 0; b < blockCount; b++) {
+            int first = b * blockSize;
+            int length = Math.min(blockSize, count - first);
+            for (int i = 0; i < length; i++) {
+                xs[i] = function.getPointX(first + i);
+                ys[i] = function.getPointY(first + i);
+            }
+            firstXs[b] = xs[0];
+            firstYs[b] = ys[0];
+            offsets[b] = start + blocks.size();
+
+            // из всех предсказателей и способов записи для y берётся тот, что даёт блок меньше
+            BitOutput best = null;
+            for (int predictor = PREVIOUS; predictor <= QUADRATIC; predictor++) {
+                for (int coding = GORILLA; coding <= LEADING; coding++) {
+                    BitOutput candidate = candidates[best == candidates[0] ? 1 : 0];
+                    candidate.clear();
+                    encode(candidate, predictor, coding, uniform, xs, ys, length);
+                    if (best == null || candidate.size() < best.size()) {
+                        best = candidate;
+                    }
+                }
+            }
+            blocks.append(best);
+        }
+        offsets[blockCount] = start + blocks.size();
+
+        ByteBuffer header = ByteBuffer.allocate((int) start);
+        header.putInt(MAGIC).put(VERSION).put((byte) (uniform ? UNIFORM : 0))
+                .putInt(count).putInt(blockSize).putDouble(left).putDouble(right).putInt(blockCount);
+        for (int b = 0; b < blockCount; b++) {
+            header.putDouble(firstXs[b]).putDouble(firstYs[b]);
+        }
+        for (long offset : offsets) {
+            header.putLong(offset);
+        }
+
+        out.write(header.array());
+        blocks.writeTo(out);
+        out.flush();
+    }
+
+    // x совпадают побитово с сеткой, которую строят конструкторы (leftX, rightX, values)
+    private static boolean isUniform(TabulatedFunction function, double left, double right) {
+        int count = function.getPointsCount();
+        double step = (right - left) / (count - 1);
+        for (int i = 0; i < count; i++) {
+            if (Double.doubleToRawLongBits(function.getPointX(i)) != Double.doubleToRawLongBits(left + step * i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void encode(BitOutput out, int predictor, int coding, boolean uniform,
+                               double[] xs, double[] ys, int length) {
+        out.write(predictor, 2);
+        out.write(coding, 1);
+
+        if (!uniform) {
+            long bits = Double.doubleToRawLongBits(xs[0]);
+            out.write(bits, 64);
+            long delta = 0;
+            for (int i = 1; i < length; i++) {
+                long next = Double.doubleToRawLongBits(xs[i]);
+                long deltaOfDelta = next - bits - delta;
+                delta = next - bits;
+                bits = next;
+
+                long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+                if (zigzag == 0) {
+                    out.write(0, 1);
+                } else {
+                    int significant = 64 - Long.numberOfLeadingZeros(zigzag);
+                    out.write(1, 1);
+                    out.write(significant - 1, 6);
+                    out.write(zigzag, significant);
+                }
+            }
+        }
+
+        long previous = Double.doubleToRawLongBits(ys[0]);
+        out.write(previous, 64);
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 1; i < length; i++) {
+            long predicted = predict(predictor, ys, i, previous);
+            long bits = Double.doubleToRawLongBits(ys[i]);
+            long xor = bits ^ predicted;
+            previous = bits;
+
+            if (xor == 0) {
+                out.write(0, 1);
+                continue;
+            }
+            out.write(1, 1);
+            int newLeading = Long.numberOfLeadingZeros(xor);
+            int newTrailing = coding == GORILLA ? Long.numberOfTrailingZeros(xor) : 0;
+            // окно LEADING сохраняется, пока XOR в него помещается и не стал намного короче
+            boolean fits = leading >= 0 && newLeading >= leading && newTrailing >= trailing
+                    && (coding == GORILLA || newLeading - leading <= WINDOW_SLACK);
+            if (fits) {
+                out.write(0, 1);
+            } else {
+                leading = newLeading;
+                trailing = newTrailing;
+                out.write(1, 1);
+                out.write(leading, 6);
+                if (coding == GORILLA) {
+                    out.write(64 - leading - trailing - 1, 6);
+                }
+            }
+            out.write(xor >>> trailing, 64 - leading - trailing);
+        }
+        out.align();
+    }
+
+    // в начале блока истории не хватает, и прогноз строится по тем значениям, что есть
+    private static long predict(int predictor, double[] ys, int i, long previous) {
+        if (predictor == QUADRATIC && i >= 3) {
+            return Double.doubleToRawLongBits(3 * ys[i - 1] - 3 * ys[i - 2] + ys[i - 3]);
+        }
+        if (predictor != PREVIOUS && i >= 2) {
+            return Double.doubleToRawLongBits(2 * ys[i - 1] - ys[i - 2]);
+        }
+        return previous;
+    }
+
+    // биты пишутся от старшего к младшему
+    private static final class BitOutput {
+        private byte[] bytes = new byte[1024];
+        private int size;
+        private long word;
+        private int used;
+
+        void write(long value, int count) {
+            if (count < 64) {
+                value &= (1L << count) - 1;
+            }
+            int free = 64 - used;
+            if (count < free) {
+                word |= value << (free - count);
+                used += count;
+            } else {
+                int rest = count - free;
+                word |= value >>> rest;
+                flushWord(8);
+                word = rest == 0 ? 0 : value << (64 - rest);
+                used = rest;
+            }
+        }
+
+        // дописывает неполный байт нулями
+        void align() {
+            flushWord((used + 7) >>> 3);
+            word = 0;
+            used = 0;
+        }
+
+        private void flushWord(int byteCount) {
+            if (size + 8 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 8));
+            }
+            for (int i = 0; i < byteCount; i++) {
+                bytes[size++] = (byte) (word >>> (56 - 8 * i));
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+            word = 0;
+            used = 0;
+        }
+
+        void append(BitOutput other) {
+            if (size + other.size > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + other.size));
+            }
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+    }
+
+    // читает по 8 байт сразу; за концом блока считаются нули
+    private static final class BitInput {
+        private final ByteBuffer data;
+        private final int end;
+        private long bitPosition;
+
+        BitInput(ByteBuffer data, int position, int end) {
+            this.data = data;
+            this.end = end;
+            this.bitPosition = (long) position << 3;
+        }
+
+        // count от 1 до 64
+        long read(int count) {
+            int index = (int) (bitPosition >>> 3);
+            int offset = (int) bitPosition & 7;
+            bitPosition += count;
+
+            long value = (word(index) << offset) >>> (64 - count);
+            int overflow = offset + count - 64;
+            if (overflow > 0) {
+                value |= (byteAt(index + 8) & 0xFF) >>> (8 - overflow);
+            }
+            return value;
+        }
+
+        private long word(int index) {
+            if (index + 8 <= end) {
+                return data.getLong(index);
+            }
+            long word = 0;
+            for (int i = 0; i < 8; i++) {
+                word = (word << 8) | (byteAt(index + i) & 0xFF);
+            }
+            return word;
+        }
+
+        private byte byteAt(int index) {
+            return index < end ? data.get(index) : 0;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package functions;
+
+import java.util.Iterator;
+
+// Потокобезопасная табулированная функция: чтение идёт из неизменяемого снимка без блокировок,
+// каждое изменение копирует снимок и публикует новый через volatile-поле.
+// Несколько изменений можно применить одной копией через update().
+public class CopyOnWriteTabulatedFunction implements TabulatedFunction {
+
+    public interface Update {
+        void apply(TabulatedFunction draft) throws InappropriateFunctionPointException;
+    }
+
+    private final Object writeLock = new Object();
+    // опубликованный снимок больше никогда не изменяется
+    private volatile DoubleArrayTabulatedFunction snapshot;
+
+    public CopyOnWriteTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        snapshot = new DoubleArrayTabulatedFunction(leftX, rightX, pointsCount);
+    }
+
+    public CopyOnWriteTabulatedFunction(double leftX, double rightX, double[] values) {
+        snapshot = new DoubleArrayTabulatedFunction(leftX, rightX, values);
+    }
+
+    public CopyOnWriteTabulatedFunction(FunctionPoint[] points) {
+        snapshot = new DoubleArrayTabulatedFunction(points);
+    }
+
+    private CopyOnWriteTabulatedFunction(DoubleArrayTabulatedFunction snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    // при исключении изменения не публикуются
+    public void update(Update update) throws InappropriateFunctionPointException {
+        synchronized (writeLock) {
+            DoubleArrayTabulatedFunction draft = (DoubleArrayTabulatedFunction) snapshot.clone();
+            update.apply(draft);
+            snapshot = draft;
+        }
+    }
+
+    private void updateUnchecked(Update update) {
+        try {
+            update(update);
+        } catch (InappropriateFunctionPointException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public double getLeftDomainBorder() {
+        return snapshot.getLeftDomainBorder();
+    }
+
+    public double getRightDomainBorder() {
+        return snapshot.getRightDomainBorder();
+    }
+
+    public double getFunctionValue(double x) {
+        return snapshot.getFunctionValue(x);
+    }
+
+    public int getPointsCount() {
+        return snapshot.getPointsCount();
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return snapshot.getPoint(index);
+    }
+
+    public double getPointX(int index) {
+        return snapshot.getPointX(index);
+    }
+
+    public double getPointY(int index) {
+        return snapshot.getPointY(index);
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        update(draft -> draft.setPoint(index, point));
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        update(draft -> draft.setPointX(index, x));
+    }
+
+    public void setPointY(int index, double y) {
+        updateUnchecked(draft -> draft.setPointY(index, y));
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        update(draft -> draft.addPoint(point));
+    }
+
+    public void deletePoint(int index) {
+        updateUnchecked(draft -> draft.deletePoint(index));
+    }
+
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        update(draft -> draft.addPoints(points));
+    }
+
+    public void deletePoints(int fromIndex, int toIndex) {
+        updateUnchecked(draft -> draft.deletePoints(fromIndex, toIndex));
+    }
+
+    public void deletePoints(int[] indices) {
+        updateUnchecked(draft -> draft.deletePoints(indices));
+    }
+
+    public String toString() {
+        return snapshot.toString();
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof CopyOnWriteTabulatedFunction) {
+            return snapshot.equals(((CopyOnWriteTabulatedFunction) o).snapshot);
+        }
+        return snapshot.equals(o);
+    }
+
+    public int hashCode() {
+        return snapshot.hashCode();
+    }
+
+    // снимок неизменяем, поэтому копия может разделять его с оригиналом
+    public Object clone() {
+        return new CopyOnWriteTabulatedFunction(snapshot);
+    }
+
+    // итератор обходит снимок, актуальный на момент вызова
+    public Iterator<FunctionPoint> iterator() {
+        return snapshot.iterator();
+    }
+
+    public static class CopyOnWriteTabulatedFunctionFactory implements TabulatedFunctionFactory {
+
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, int pointsCount) {
+            return new CopyOnWriteTabulatedFunction(leftX, rightX, pointsCount);
+        }
+
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, double[] values) {
+            return new CopyOnWriteTabulatedFunction(leftX, rightX, values);
+        }
+
+        public TabulatedFunction createTabulatedFunction(FunctionPoint[] points) {
+            return new CopyOnWriteTabulatedFunction(points);
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package functions;
+
+import java.io.Externalizable;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+public class DoubleArrayTabulatedFunction implements TabulatedFunction, Externalizable {
+
+    private static final long serialVersionUID = 1L;
+    private static final double EPSILON = 1e-10;
+    private static final double DEFAULT_GROWTH_FACTOR = 2.0;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    // xs.length == ys.length — ёмкость массивов, заняты только первые pointsCount элементов
+    private double[] xs;
+    private double[] ys;
+    private int pointsCount;
+    private double growthFactor = DEFAULT_GROWTH_FACTOR;
+
+    public DoubleArrayTabulatedFunction() {
+    }
+
+
+    public DoubleArrayTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("левая граница больше или равна правой");
+        }
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("число точек меньше 2");
+        }
+
+        this.pointsCount = pointsCount;
+        xs = new double[pointsCount];
+        ys = new double[pointsCount];
+
+        double step = (rightX - leftX) / (pointsCount - 1);
+
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = leftX + step * i;
+        }
+    }
+
+
+    public DoubleArrayTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("левая граница больше или равна правой");
+        }
+        if (values.length < 2) {
+            throw new IllegalArgumentException("число точек меньше 2");
+        }
+
+        this.pointsCount = values.length;
+        xs = new double[pointsCount];
+        ys = new double[pointsCount];
+
+        double step = (rightX - leftX) / (pointsCount - 1);
+
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = leftX + step * i;
+            ys[i] = values[i];
+        }
+    }
+
+
+    public DoubleArrayTabulatedFunction(FunctionPoint[] points) {
+        if (points.length < 2)
+            throw new IllegalArgumentException("Количество точек должно быть ≥ 2");
+
+        for (int i = 1; i < points.length; i++) {
+            if (points[i].getX() <= points[i - 1].getX())
+                throw new IllegalArgumentException("Точки должны быть упорядочены по X");
+        }
+
+        this.pointsCount = points.length;
+        xs = new double[pointsCount];
+        ys = new double[pointsCount];
+
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = points[i].getX();
+            ys[i] = points[i].getY();
+        }
+    }
+
+
+    private DoubleArrayTabulatedFunction(double[] xs, double[] ys, int pointsCount) {
+        this.xs = xs;
+        this.ys = ys;
+        this.pointsCount = pointsCount;
+    }
+
+
+    public double getGrowthFactor() {
+        return growthFactor;
+    }
+
+
+    public void setGrowthFactor(double growthFactor) {
+        if (!(growthFactor > 1))
+            throw new IllegalArgumentException("коэффициент роста должен быть больше 1");
+
+        this.growthFactor = growthFactor;
+    }
+
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= xs.length) return;
+        if (minCapacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("слишком большая ёмкость");
+
+        long grown = (long) (xs.length * growthFactor);
+        int capacity = (int) Math.min(MAX_CAPACITY, Math.max(minCapacity, grown));
+
+        double[] newXs = new double[capacity];
+        double[] newYs = new double[capacity];
+        System.arraycopy(xs, 0, newXs, 0, pointsCount);
+        System.arraycopy(ys, 0, newYs, 0, pointsCount);
+        xs = newXs;
+        ys = newYs;
+    }
+
+
+    public void trimToSize() {
+        if (xs.length == pointsCount) return;
+
+        double[] newXs = new double[pointsCount];
+        double[] newYs = new double[pointsCount];
+        System.arraycopy(xs, 0, newXs, 0, pointsCount);
+        System.arraycopy(ys, 0, newYs, 0, pointsCount);
+        xs = newXs;
+        ys = newYs;
+    }
+
+
+    public double getLeftDomainBorder() {
+        return xs[0];
+    }
+
+
+    public double getRightDomainBorder() {
+        return xs[pointsCount - 1];
+    }
+
+
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder())
+            return Double.NaN;
+
+        int i = findSegment(x);
+
+        int j = i;
+        while (j > 0 && x - xs[j - 1] < EPSILON) {
+            j--;
+        }
+        if (Math.abs(x - xs[j]) < EPSILON) return ys[j];
+
+        double x1 = xs[i];
+        double y1 = ys[i];
+        double x2 = xs[i + 1];
+        double y2 = ys[i + 1];
+
+        if (Math.abs(x - x2) < EPSILON) return y2;
+
+        if (x > x1 && x < x2) {
+            return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+        }
+
+        return Double.NaN;
+    }
+
+
+    private int findSegment(double x) {
+        int low = 0;
+        int high = pointsCount - 2;
+
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (xs[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+
+    public FunctionPoint getPoint(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("неверный индекс");
+
+        return new FunctionPoint(xs[index], ys[index]);
+    }
+
+
+    public double getPointX(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("неверный индекс");
+
+        return xs[index];
+    }
+
+
+    public double getPointY(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("неверный индекс");
+
+        return ys[index];
+    }
+
+
+    public void setPoint(int index, FunctionPoint p) throws InappropriateFunctionPointException {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("неверный индекс");
+
+        double x = p.getX();
+
+        if ((index > 0 && x <= xs[index - 1] + EPSILON)
+                || (index < pointsCount - 1 && x >= xs[index + 1] - EPSILON)) {
+            throw new InappropriateFunctionPointException("новая точка нарушает порядок X");
+        }
+
+        xs[index] = x;
+        ys[index] = p.getY();
+    }
+
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("неверный индекс");
+
+        if ((index > 0 && x <= xs[index - 1] + EPSILON)
+                || (index < pointsCount - 1 && x >= xs[index + 1] - EPSILON)) {
+            throw new InappropriateFunctionPointException("новый x нарушает порядок точек");
+        }
+
+        xs[index] = x;
+    }
+
+
+    public void setPointY(int index, double y) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("неверный индекс");
+
+        ys[index] = y;
+    }
+
+
+    public void deletePoint(int index) {
+        if (pointsCount <= 2) {
+            throw new IllegalStateException("Нельзя удалить точку — останется меньше 2 точек");
+        }
+
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException("Неверный индекс");
+        }
+
+        System.arraycopy(xs, index + 1, xs, index, pointsCount - index - 1);
+        System.arraycopy(ys, index + 1, ys, index, pointsCount - index - 1);
+        pointsCount--;
+    }
+
+
+    public void addPoint(FunctionPoint p) throws InappropriateFunctionPointException {
+        double x = p.getX();
+
+        // первая точка с x не меньше нового; совпадать может только она или предыдущая
+        int low = 0;
+        int high = pointsCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (xs[mid] < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int i = low;
+
+        if ((i > 0 && Math.abs(xs[i - 1] - x) < EPSILON)
+                || (i < pointsCount && Math.abs(xs[i] - x) < EPSILON))
+            throw new InappropriateFunctionPointException("точка с таким x уже существует");
+
+        ensureCapacity(pointsCount + 1);
+        System.arraycopy(xs, i, xs, i + 1, pointsCount - i);
+        System.arraycopy(ys, i, ys, i + 1, pointsCount - i);
+        xs[i] = x;
+        ys[i] = p.getY();
+        pointsCount++;
+    }
+
+
+    // сначала проверяются все точки пакета, чтобы при ошибке функция не изменилась;
+    // затем массивы растут по общему правилу и слияние идёт с конца прямо в них
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        FunctionPoint[] batch = TabulatedFunctions.prepareBatch(points);
+        for (FunctionPoint p : batch) {
+            if (TabulatedFunctions.containsX(this, p.getX()))
+                throw new InappropriateFunctionPointException("точка с таким x уже существует");
+        }
+        if ((long) pointsCount + batch.length > MAX_CAPACITY)
+            throw new IllegalArgumentException("слишком большая ёмкость");
+
+        ensureCapacity(pointsCount + batch.length);
+
+        int i = pointsCount - 1;
+        int j = batch.length - 1;
+        for (int k = pointsCount + batch.length - 1; j >= 0; k--) {
+            if (i >= 0 && xs[i] > batch[j].getX()) {
+                xs[k] = xs[i];
+                ys[k] = ys[i];
+                i--;
+            } else {
+                xs[k] = batch[j].getX();
+                ys[k] = batch[j].getY();
+                j--;
+            }
+        }
+        pointsCount += batch.length;
+    }
+
+
+    public void deletePoints(int fromIndex, int toIndex) {
+        TabulatedFunctions.checkRange(fromIndex, toIndex, pointsCount, 2);
+
+        System.arraycopy(xs, toIndex, xs, fromIndex, pointsCount - toIndex);
+        System.arraycopy(ys, toIndex, ys, fromIndex, pointsCount - toIndex);
+        pointsCount -= toIndex - fromIndex;
+    }
+
+
+    public void deletePoints(int[] indices) {
+        int[] sorted = TabulatedFunctions.prepareIndices(indices, pointsCount, 2);
+
+        int j = 0;
+        int k = 0;
+        for (int i = 0; i < pointsCount; i++) {
+            if (j < sorted.length && sorted[j] == i) {
+                j++;
+            } else {
+                xs[k] = xs[i];
+                ys[k] = ys[i];
+                k++;
+            }
+        }
+
+        pointsCount = k;
+    }
+
+
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(pointsCount);
+
+        for (int i = 0; i < pointsCount; i++) {
+            out.writeDouble(xs[i]);
+            out.writeDouble(ys[i]);
+        }
+    }
+
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int size = in.readInt();
+
+        if (size < 2) {
+            throw new IOException("Недостаточно точек для создания функции");
+        }
+
+        xs = new double[size];
+        ys = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            xs[i] = in.readDouble();
+            ys[i] = in.readDouble();
+        }
+
+        pointsCount = size;
+    }
+
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+
+        for (int i = 0; i < pointsCount; i++) {
+            sb.append("(").append(xs[i]).append("; ").append(ys[i]).append(")");
+            if (i < pointsCount - 1)
+                sb.append(", ");
+        }
+
+        sb.append("}");
+        return sb.toString();
+    }
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+
+        if (o instanceof DoubleArrayTabulatedFunction) {
+            DoubleArrayTabulatedFunction other = (DoubleArrayTabulatedFunction) o;
+
+            if (this.pointsCount != other.pointsCount) return false;
+
+            for (int i = 0; i < pointsCount; i++) {
+                if (!this.getPoint(i).equals(other.getPoint(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        if (o instanceof TabulatedFunction) {
+            TabulatedFunction other = (TabulatedFunction) o;
+
+            if (this.pointsCount != other.getPointsCount()) return false;
+
+            for (int i = 0; i < pointsCount; i++) {
+                if (!this.getPoint(i).equals(other.getPoint(i)))
+                    return false;
+            }
+            return true;
+        }
+
+        return false;
+    }
+    public int hashCode() {
+        int hash = pointsCount;
+
+        for (int i = 0; i < pointsCount; i++) {
+            long x = Double.doubleToLongBits(xs[i]);
+            long y = Double.doubleToLongBits(ys[i]);
+
+            hash ^= (int)(x ^ (x >>> 32));
+            hash ^= (int)(y ^ (y >>> 32));
+        }
+
+        return hash;
+    }
+    public Object clone() {
+        double[] newXs = new double[pointsCount];
+        double[] newYs = new double[pointsCount];
+        System.arraycopy(xs, 0, newXs, 0, pointsCount);
+        System.arraycopy(ys, 0, newYs, 0, pointsCount);
+
+        return new DoubleArrayTabulatedFunction(newXs, newYs, pointsCount);
+    }
+    public Iterator<FunctionPoint> iterator() {
+        return new Iterator<FunctionPoint>() {
+            private int index = 0;
+
+            public boolean hasNext() {
+                return index < pointsCount;
+            }
+
+            public FunctionPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FunctionPoint p = new FunctionPoint(xs[index], ys[index]);
+                index++;
+                return p;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+    public static class DoubleArrayTabulatedFunctionFactory implements TabulatedFunctionFactory {
+
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, int pointsCount) {
+            return new DoubleArrayTabulatedFunction(leftX, rightX, pointsCount);
+        }
+
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, double[] values) {
+            return new DoubleArrayTabulatedFunction(leftX, rightX, values);
+        }
+
+        public TabulatedFunction createTabulatedFunction(FunctionPoint[] points) {
+            return new DoubleArrayTabulatedFunction(points);
+        }
+    }
+
+
+
+}
@@ -6,4 +6,11 @@ public interface Function {
     double getRightDomainBorder();
 
     double getFunctionValue(double x);
+
+    // out[outOffset + i] = f(xs[xsOffset + i]); out может совпадать с xs при равных смещениях
+    default void getFunctionValues(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = getFunctionValue(xs[xsOffset + i]);
+        }
+    }
 }
@@ -1,9 +1,19 @@
 package functions;
 
 import functions.meta.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public final class Functions {
 
+    private static final long PARALLEL_THRESHOLD = 1 << 16;
+    private static final long BLOCK_STEPS = 1 << 12;
+
     private Functions() {
         throw new UnsupportedOperationException("Нельзя создавать экземпляры класса Functions");
     }
@@ -31,6 +41,17 @@ public final class Functions {
     public static Function composition(Function f1, Function f2) {
         return new Composition(f1, f2);
     }
+    public static Function compile(Function f) {
+        return FunctionCompiler.compile(f);
+    }
+
+    public static Function simplify(Function f) {
+        return FunctionSimplifier.simplify(f);
+    }
+
+    // трапеции на сетке left + k * step; отрезок делится на блоки по BLOCK_STEPS шагов,
+    // суммы блоков складываются деревом по их номерам, как и в integrateParallel,
+    // поэтому оба метода дают для одного и того же интеграла одинаковый результат
     public static double integrate(Function f, double left, double right, double step) {
         if (left < f.getLeftDomainBorder() || right > f.getRightDomainBorder()) {
             throw new IllegalArgumentException("Интервал интегрирования выходит за границы функции");
@@ -39,20 +60,418 @@ public final class Functions {
             throw new IllegalArgumentException("Шаг дискретизации должен быть положительным");
         }
 
+        long steps = (long) Math.ceil((right - left) / step);
+        if (steps <= 0) {
+            return 0.0;
+        }
+
+        // блоки обходятся слева направо, поэтому табулированной функции хватает одного курсора
+        double[][] points = f instanceof TabulatedFunction ? snapshot((TabulatedFunction) f, left, right) : null;
+        SegmentCursor cursor = points != null ? new SegmentCursor(points, left) : null;
+        long blocks = (steps + BLOCK_STEPS - 1) / BLOCK_STEPS;
+        double[] sum = new GridIntegration(f, left, right, step, steps, 0, blocks, false, points, cursor).compute();
+        return sum[0] + sum[1];
+    }
+
+    public static double integrateParallel(Function f, double left, double right, double step) {
+        return integrateParallel(f, left, right, step, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+    }
+
+    // threshold — число шагов, меньше которого считается обычным последовательным циклом
+    public static double integrateParallel(Function f, double left, double right, double step,
+                                           ForkJoinPool pool, long threshold) {
+        if (left < f.getLeftDomainBorder() || right > f.getRightDomainBorder()) {
+            throw new IllegalArgumentException("Интервал интегрирования выходит за границы функции");
+        }
+        if (step <= 0) {
+            throw new IllegalArgumentException("Шаг дискретизации должен быть положительным");
+        }
+
+        long steps = (long) Math.ceil((right - left) / step);
+        if (steps < threshold || steps <= BLOCK_STEPS) {
+            return integrate(f, left, right, step);
+        }
+
+        // дерево сложения зависит только от номеров блоков, поэтому результат
+        // не зависит от числа потоков и порядка их работы. Точки табулированной функции
+        // копируются до запуска задач: LinkedListTabulatedFunction и CompressedTabulatedFunction
+        // меняют свои кэши при чтении, и одновременные чтения из нескольких потоков их портят
+        double[][] points = f instanceof TabulatedFunction ? snapshot((TabulatedFunction) f, left, right) : null;
+        long blocks = (steps + BLOCK_STEPS - 1) / BLOCK_STEPS;
+        double[] sum = pool.invoke(new GridIntegration(f, left, right, step, steps, 0, blocks, true, points, null));
+        return sum[0] + sum[1];
+    }
+
+    private static final class GridIntegration extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Function f;
+        private final double left;
+        private final double right;
+        private final double step;
+        private final long steps;
+        private final long fromBlock;
+        private final long toBlock;
+        private final boolean parallel;
+        // копия точек табулированной функции, покрывающих отрезок; null для остальных функций
+        private final transient double[][] points;
+        // общий курсор последовательного обхода; при параллельном у каждого блока свой
+        private final transient SegmentCursor cursor;
+
+        GridIntegration(Function f, double left, double right, double step, long steps,
+                        long fromBlock, long toBlock, boolean parallel, double[][] points, SegmentCursor cursor) {
+            this.f = f;
+            this.left = left;
+            this.right = right;
+            this.step = step;
+            this.steps = steps;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+            this.parallel = parallel;
+            this.points = points;
+            this.cursor = cursor;
+        }
+
+        protected double[] compute() {
+            if (toBlock - fromBlock == 1) {
+                return integrateBlock();
+            }
+
+            long middle = (fromBlock + toBlock) >>> 1;
+            GridIntegration leftPart = new GridIntegration(f, left, right, step, steps,
+                    fromBlock, middle, parallel, points, cursor);
+            GridIntegration rightPart = new GridIntegration(f, left, right, step, steps,
+                    middle, toBlock, parallel, points, cursor);
+            double[] a;
+            double[] b;
+            if (parallel) {
+                leftPart.fork();
+                b = rightPart.compute();
+                a = leftPart.join();
+            } else {
+                a = leftPart.compute();
+                b = rightPart.compute();
+            }
+
+            add(a, b[0]);
+            add(a, b[1]);
+            return a;
+        }
+
+        private double[] integrateBlock() {
+            long from = fromBlock * BLOCK_STEPS;
+            int count = (int) (Math.min(from + BLOCK_STEPS, steps) - from);
+            double[] sum = new double[2];
+
+            double[] xs = new double[count + 1];
+            double[] ys = new double[count + 1];
+            for (int i = 0; i <= count; i++) {
+                xs[i] = gridX(from + i);
+            }
+            if (points != null) {
+                SegmentCursor c = cursor != null ? cursor : new SegmentCursor(points, xs[0]);
+                for (int i = 0; i <= count; i++) {
+                    ys[i] = c.valueAt(xs[i]);
+                }
+            } else {
+                f.getFunctionValues(xs, 0, ys, 0, count + 1);
+            }
+
+            for (int i = 0; i < count; i++) {
+                add(sum, (ys[i] + ys[i + 1]) * (xs[i + 1] - xs[i]) / 2.0);
+            }
+            return sum;
+        }
+
+        private double gridX(long k) {
+            return k >= steps ? right : Math.min(left + k * step, right);
+        }
+
+        // суммирование Ноймайера: sum[0] — сумма, sum[1] — накопленная поправка
+        private static void add(double[] sum, double value) {
+            double t = sum[0] + value;
+            if (Math.abs(sum[0]) >= Math.abs(value)) {
+                sum[1] += (sum[0] - t) + value;
+            } else {
+                sum[1] += (value - t) + sum[0];
+            }
+            sum[0] = t;
+        }
+    }
+
+    public static IntegrationResult integrateAdaptive(Function f, double left, double right,
+                                                      double absTolerance, double relTolerance,
+                                                      int maxEvaluations) {
+        if (left < f.getLeftDomainBorder() || right > f.getRightDomainBorder()) {
+            throw new IllegalArgumentException("Интервал интегрирования выходит за границы функции");
+        }
+        if (absTolerance < 0 || relTolerance < 0 || (absTolerance == 0 && relTolerance == 0)) {
+            throw new IllegalArgumentException("Допустимая погрешность должна быть положительной");
+        }
+        if (maxEvaluations < 5) {
+            throw new IllegalArgumentException("Число вычислений функции должно быть не меньше 5");
+        }
+
+        return new AdaptiveSimpson(f, maxEvaluations).integrate(left, right, absTolerance, relTolerance);
+    }
+
+    // Глобальная адаптивная схема: отрезок с наибольшей оценкой погрешности всегда делится
+    // первым, так что бюджет вычислений тратится там, где ошибка больше, а не на левый край.
+    // Сначала отрезок делится на MIN_SEGMENTS равных частей, чтобы узлы одного грубого
+    // отрезка не совпали с нулями периодической функции
+    private static final class AdaptiveSimpson {
+        private static final int MIN_SEGMENTS = 8;
+        private static final int MAX_DEPTH = 50;
+        private static final double ROUNDOFF = 1e-13;
+
+        // отрезок [a, b] с узлами a, lm, m, rm, b; value - формула Симпсона по двум половинам
+        // с поправкой Ричардсона. Оценке |delta| / 15 можно верить, только если функция на
+        // отрезке уже разрешена: на двух делениях подряд оценка падала хотя бы в 8 раз
+        // (у гладкой функции - примерно в 32). Иначе узлы могли попасть на случайно малые
+        // значения осциллирующей функции, и погрешность оценивается грубо: ширина отрезка,
+        // умноженная на наибольшее значение в узлах, но не меньше |delta|. Поэтому начальные
+        // отрезки всегда делятся хотя бы дважды
+        private static final class Segment {
+            final double a, b;
+            final double fa, flm, fm, frm, fb;
+            final double value;
+            final double estimate;
+            final double error;
+            final int depth;
+            // оценка упала по сравнению с родителем
+            final boolean decreasing;
+
+            Segment(double a, double b, double fa, double flm, double fm, double frm, double fb,
+                    int depth, Segment parent) {
+                this.a = a;
+                this.b = b;
+                this.fa = fa;
+                this.flm = flm;
+                this.fm = fm;
+                this.frm = frm;
+                this.fb = fb;
+                this.depth = depth;
+
+                double m = (a + b) / 2;
+                double whole = simpson(a, b, fa, fm, fb);
+                double halves = simpson(a, m, fa, flm, fm) + simpson(m, b, fm, frm, fb);
+                double delta = halves - whole;
+                this.value = halves + delta / 15;
+                this.estimate = Math.abs(delta) / 15;
+
+                double scale = (b - a) * Math.max(Math.max(Math.abs(fa), Math.abs(fb)),
+                        Math.max(Math.abs(fm), Math.max(Math.abs(flm), Math.abs(frm))));
+                // оценки на уровне ошибок округления не убывают, но и грубой оценки не требуют
+                this.decreasing = parent != null && estimate <= parent.estimate / 8;
+                boolean resolved = parent != null
+                        && ((decreasing && parent.decreasing) || estimate <= ROUNDOFF * scale);
+                this.error = resolved ? estimate : Math.max(Math.abs(delta), scale);
+            }
+        }
+
+        private final Function f;
+        private final int maxEvaluations;
+        private int evaluations;
+
+        AdaptiveSimpson(Function f, int maxEvaluations) {
+            this.f = f;
+            this.maxEvaluations = maxEvaluations;
+        }
+
+        IntegrationResult integrate(double a, double b, double absTolerance, double relTolerance) {
+            if (a >= b) {
+                return new IntegrationResult(0.0, 0.0, 0, true);
+            }
+
+            // каждый начальный отрезок стоит 4 вычисления и ещё одно на общий левый край;
+            // если бюджета на все MIN_SEGMENTS не хватает, сходимость не объявляется
+            int count = Math.min(MIN_SEGMENTS, (maxEvaluations - 1) / 4);
+            boolean converged = count == MIN_SEGMENTS;
+            PriorityQueue<Segment> queue = new PriorityQueue<>(
+                    Comparator.comparingDouble((Segment s) -> s.error).reversed());
+            // отрезки, которые делить уже нельзя (предел глубины или точности double)
+            List<Segment> finished = new ArrayList<>();
+
+            double width = (b - a) / count;
+            double left = a;
+            double fLeft = value(a);
+            for (int i = 0; i < count; i++) {
+                double right = i == count - 1 ? b : a + width * (i + 1);
+                double fRight = value(right);
+                queue.add(initialSegment(left, right, fLeft, fRight));
+                left = right;
+                fLeft = fRight;
+            }
+
+            double total = sum(queue, finished, false);
+            double error = sum(queue, finished, true);
+            while (error > Math.max(absTolerance, relTolerance * Math.abs(total))) {
+                if (evaluations + 4 > maxEvaluations || queue.isEmpty()) {
+                    converged = false;
+                    break;
+                }
+
+                Segment s = queue.poll();
+                double m = (s.a + s.b) / 2;
+                if (s.depth >= MAX_DEPTH || (s.a + m) / 2 <= s.a || (m + s.b) / 2 >= s.b) {
+                    finished.add(s);
+                    continue;
+                }
+
+                Segment l = segment(s.a, m, s.fa, s.flm, s.fm, s.depth + 1, s);
+                Segment r = segment(m, s.b, s.fm, s.frm, s.fb, s.depth + 1, s);
+                queue.add(l);
+                queue.add(r);
+                total += l.value + r.value - s.value;
+                error += l.error + r.error - s.error;
+
+                // накопленные вычитания могли занизить сумму: перед выходом она пересчитывается
+                if (error <= Math.max(absTolerance, relTolerance * Math.abs(total))) {
+                    total = sum(queue, finished, false);
+                    error = sum(queue, finished, true);
+                }
+            }
+            total = sum(queue, finished, false);
+            error = sum(queue, finished, true);
+
+            return new IntegrationResult(total, error, evaluations, converged);
+        }
+
+        private static double sum(PriorityQueue<Segment> queue, List<Segment> finished, boolean errors) {
+            double sum = 0.0;
+            for (Segment s : queue) {
+                sum += errors ? s.error : s.value;
+            }
+            for (Segment s : finished) {
+                sum += errors ? s.error : s.value;
+            }
+            return sum;
+        }
+
+        // отрезок с известными концами: вычисляются середина и четверти
+        private Segment initialSegment(double a, double b, double fa, double fb) {
+            double fm = value((a + b) / 2);
+            return segment(a, b, fa, fm, fb, 0, null);
+        }
+
+        // отрезок с известными концами и серединой: вычисляются только четверти
+        private Segment segment(double a, double b, double fa, double fm, double fb,
+                                int depth, Segment parent) {
+            double m = (a + b) / 2;
+            double flm = value((a + m) / 2);
+            double frm = value((m + b) / 2);
+            return new Segment(a, b, fa, flm, fm, frm, fb, depth, parent);
+        }
+
+        private double value(double x) {
+            evaluations++;
+            return f.getFunctionValue(x);
+        }
+
+        private static double simpson(double a, double b, double fa, double fm, double fb) {
+            return (b - a) / 6 * (fa + 4 * fm + fb);
+        }
+    }
+
+    public static double integrateExact(TabulatedFunction f, double left, double right) {
+        if (left < f.getLeftDomainBorder() || right > f.getRightDomainBorder()) {
+            throw new IllegalArgumentException("Интервал интегрирования выходит за границы функции");
+        }
+
         double integral = 0.0;
-        double x = left;
+        Iterator<FunctionPoint> points = f.iterator();
+        FunctionPoint p1 = points.next();
 
-        while (x < right) {
-            double nextX = Math.min(x + step, right);
-            double y1 = f.getFunctionValue(x);
-            double y2 = f.getFunctionValue(nextX);
+        while (points.hasNext() && p1.getX() < right) {
+            FunctionPoint p2 = points.next();
 
-            integral += (y1 + y2) * (nextX - x) / 2.0;
-            x = nextX;
+            double lo = Math.max(p1.getX(), left);
+            double hi = Math.min(p2.getX(), right);
+            if (lo < hi) {
+                integral += (interpolate(p1, p2, lo) + interpolate(p1, p2, hi)) * (hi - lo) / 2.0;
+            }
+            p1 = p2;
         }
 
         return integral;
     }
 
+    private static double interpolate(FunctionPoint p1, FunctionPoint p2, double x) {
+        if (x == p1.getX()) return p1.getY();
+        if (x == p2.getX()) return p2.getY();
+        return p1.getY() + (p2.getY() - p1.getY()) * (x - p1.getX()) / (p2.getX() - p1.getX());
+    }
+
+    // точки с отрезка, накрывающего [left, right]: xs и ys от начала отрезка с left
+    // до конца отрезка с right. Индексы читаются по порядку, поэтому у связного списка
+    // каждое чтение продолжает обход с прошлого узла
+    private static double[][] snapshot(TabulatedFunction f, double left, double right) {
+        int from = firstNotLess(f, left) - 1;
+        int to = firstNotLess(f, right);
+        double[] xs = new double[to - from + 1];
+        double[] ys = new double[to - from + 1];
+        for (int i = from; i <= to; i++) {
+            xs[i - from] = f.getPointX(i);
+            ys[i - from] = f.getPointY(i);
+        }
+        return new double[][]{xs, ys};
+    }
+
+    // первый индекс из [1, pointsCount - 1] с x не меньше заданного
+    private static int firstNotLess(TabulatedFunction f, double x) {
+        int lo = 1;
+        int hi = f.getPointsCount() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (f.getPointX(mid) < x) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // x растёт монотонно, поэтому отрезок ищется курсором, который только движется вперёд;
+    // начальный отрезок находится двоичным поиском
+    private static final class SegmentCursor {
+        private static final double EPSILON = 1e-10;
+
+        private final double[] xs;
+        private final double[] ys;
+        // номер правого конца текущего отрезка
+        private int index;
+
+        SegmentCursor(double[][] points, double x) {
+            this.xs = points[0];
+            this.ys = points[1];
 
+            int lo = 1;
+            int hi = xs.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (xs[mid] < x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            index = lo;
+        }
+
+        double valueAt(double x) {
+            while (x > xs[index] && index < xs.length - 1) {
+                index++;
+            }
+
+            double x1 = xs[index - 1];
+            double y1 = ys[index - 1];
+            double x2 = xs[index];
+            double y2 = ys[index];
+            if (Math.abs(x - x1) < EPSILON) return y1;
+            if (Math.abs(x - x2) < EPSILON) return y2;
+
+            return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package functions;
+
+public class IntegrationResult {
+    private final double value;
+    private final double errorEstimate;
+    private final int evaluations;
+    private final boolean converged;
+
+    public IntegrationResult(double value, double errorEstimate, int evaluations, boolean converged) {
+        this.value = value;
+        this.errorEstimate = errorEstimate;
+        this.evaluations = evaluations;
+        this.converged = converged;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getErrorEstimate() {
+        return errorEstimate;
+    }
+
+    public int getEvaluations() {
+        return evaluations;
+    }
+
+    // false, если точность не достигнута до исчерпания числа вычислений или глубины деления
+    public boolean isConverged() {
+        return converged;
+    }
+
+    public String toString() {
+        return value + " ± " + errorEstimate + " (" + evaluations + " вычислений"
+                + (converged ? ")" : ", точность не достигнута)");
+    }
+}
@@ -1,13 +1,17 @@
 package functions;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 public class LinkedListTabulatedFunction implements TabulatedFunction, Serializable {
-    private static final long serialVersionUID = 1L;
+    // 2: точки пишутся вручную, узлы больше не сериализуются; потоки версии 1 не читаются
+    private static final long serialVersionUID = 2L;
     private static final double EPSILON = 1e-10;
 
-    private static class FunctionNode implements Serializable {
-        private static final long serialVersionUID = 1L;
+    private static class FunctionNode {
         FunctionPoint data;
         FunctionNode  next;
         FunctionNode prev;
@@ -17,10 +21,12 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
         }
     }
 
-    private  FunctionNode head;
-    private int pointsCount;
-    private FunctionNode lastAccessedNode;
-    private int lastAccessedIndex;
+    // список сериализуется вручную (writeObject/readObject): стандартная сериализация
+    // обходит узлы рекурсивно и на длинных списках переполняет стек
+    private transient FunctionNode head;
+    private transient int pointsCount;
+    private transient FunctionNode lastAccessedNode;
+    private transient int lastAccessedIndex;
 
     public LinkedListTabulatedFunction(double leftX, double rightX, int pointsCount) {
         if (leftX >= rightX) {
@@ -223,6 +229,73 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
         pointsCount++;
     }
 
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        FunctionPoint[] batch = TabulatedFunctions.prepareBatch(points);
+
+        // сначала проверка всего пакета, чтобы при ошибке список не менялся
+        FunctionNode current = head.next;
+        for (FunctionPoint p : batch) {
+            double x = p.getX();
+            while (current != head && current.data.getX() < x) {
+                current = current.next;
+            }
+            if ((current != head && Math.abs(current.data.getX() - x) < EPSILON)
+                    || (current.prev != head && Math.abs(current.prev.data.getX() - x) < EPSILON))
+                throw new InappropriateFunctionPointException("Точка с таким X уже существует");
+        }
+
+        current = head.next;
+        for (FunctionPoint p : batch) {
+            while (current != head && current.data.getX() < p.getX()) {
+                current = current.next;
+            }
+
+            FunctionNode newNode = new FunctionNode(p);
+            FunctionNode prevNode = current.prev;
+            prevNode.next = newNode;
+            newNode.prev = prevNode;
+            newNode.next = current;
+            current.prev = newNode;
+        }
+
+        pointsCount += batch.length;
+        lastAccessedNode = head;
+        lastAccessedIndex = -1;
+    }
+
+    public void deletePoints(int fromIndex, int toIndex) {
+        TabulatedFunctions.checkRange(fromIndex, toIndex, pointsCount, 3);
+        if (fromIndex == toIndex) return;
+
+        FunctionNode first = getNodeByIndex(fromIndex);
+        FunctionNode last = getNodeByIndex(toIndex - 1);
+        first.prev.next = last.next;
+        last.next.prev = first.prev;
+
+        pointsCount -= toIndex - fromIndex;
+        lastAccessedNode = head;
+        lastAccessedIndex = -1;
+    }
+
+    public void deletePoints(int[] indices) {
+        int[] sorted = TabulatedFunctions.prepareIndices(indices, pointsCount, 3);
+
+        FunctionNode current = head.next;
+        int j = 0;
+        for (int i = 0; i < pointsCount && j < sorted.length; i++) {
+            if (sorted[j] == i) {
+                current.prev.next = current.next;
+                current.next.prev = current.prev;
+                j++;
+            }
+            current = current.next;
+        }
+
+        pointsCount -= sorted.length;
+        lastAccessedNode = head;
+        lastAccessedIndex = -1;
+    }
+
     public double getFunctionValue(double x) {
         if (x < getLeftDomainBorder() - EPSILON || x > getRightDomainBorder() + EPSILON)
             return Double.NaN;
@@ -289,8 +362,8 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
 
             return true;
         }
-        if (o instanceof ArrayTabulatedFunction) {
-            ArrayTabulatedFunction other = (ArrayTabulatedFunction) o;
+        if (o instanceof TabulatedFunction) {
+            TabulatedFunction other = (TabulatedFunction) o;
 
             if (this.pointsCount != other.getPointsCount()) return false;
 
@@ -325,6 +398,42 @@ public class LinkedListTabulatedFunction implements TabulatedFunction, Serializa
 
         return hash;
     }
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(pointsCount);
+
+        for (FunctionNode current = head.next; current != head; current = current.next) {
+            out.writeDouble(current.data.getX());
+            out.writeDouble(current.data.getY());
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int size = in.readInt();
+
+        if (size < 2) {
+            throw new InvalidObjectException("Недостаточно точек для создания функции");
+        }
+
+        head = new FunctionNode(null);
+        FunctionNode tail = head;
+        for (int i = 0; i < size; i++) {
+            double x = in.readDouble();
+            double y = in.readDouble();
+            FunctionNode node = new FunctionNode(new FunctionPoint(x, y));
+            node.prev = tail;
+            tail.next = node;
+            tail = node;
+        }
+        tail.next = head;
+        head.prev = tail;
+
+        pointsCount = size;
+        lastAccessedNode = head;
+        lastAccessedIndex = -1;
+    }
+
     public Object clone() {
         LinkedListTabulatedFunction clone = new LinkedListTabulatedFunction(); // пустой конструктор
 
@@ -0,0 +1,244 @@
+package functions;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Табулированная функция, точки которой лежат в отображённом в память файле
+// формата outputTabulatedFunction: int количество, затем пары x y типа double.
+public class MappedTabulatedFunction implements TabulatedFunction {
+
+    private static final double EPSILON = 1e-10;
+
+    private static final int HEADER_SIZE = 4;
+    private static final int POINT_SIZE = 16;
+    // один MappedByteBuffer ограничен 2 ГБ, поэтому файл отображается кусками по 1 ГБ
+    private static final int CHUNK_SHIFT = 26;
+    private static final int CHUNK_POINTS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_POINTS - 1;
+
+    private final MappedByteBuffer[] chunks;
+    private final int pointsCount;
+    private final boolean writable;
+
+    public MappedTabulatedFunction(Path file) throws IOException {
+        this(file, false);
+    }
+
+    public MappedTabulatedFunction(Path file, boolean writable) throws IOException {
+        this.writable = writable;
+
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        try (FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Файл слишком короткий");
+            }
+
+            int count = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).getInt(0);
+            if (count < 2) {
+                throw new IOException("Недостаточно точек для создания функции");
+            }
+            if (channel.size() < HEADER_SIZE + (long) count * POINT_SIZE) {
+                throw new IOException("Размер файла не соответствует количеству точек");
+            }
+
+            this.pointsCount = count;
+            this.chunks = new MappedByteBuffer[(count + CHUNK_POINTS - 1) >>> CHUNK_SHIFT];
+
+            for (int k = 0; k < chunks.length; k++) {
+                long first = (long) k << CHUNK_SHIFT;
+                long points = Math.min(CHUNK_POINTS, count - first);
+                chunks[k] = channel.map(mode, HEADER_SIZE + first * POINT_SIZE, points * POINT_SIZE);
+            }
+        }
+    }
+
+    private double x(int index) {
+        return chunks[index >>> CHUNK_SHIFT].getDouble((index & CHUNK_MASK) * POINT_SIZE);
+    }
+
+    private double y(int index) {
+        return chunks[index >>> CHUNK_SHIFT].getDouble((index & CHUNK_MASK) * POINT_SIZE + 8);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("неверный индекс");
+    }
+
+    private void checkWritable() {
+        if (!writable)
+            throw new UnsupportedOperationException("Функция открыта только для чтения");
+    }
+
+    public double getLeftDomainBorder() {
+        return x(0);
+    }
+
+    public double getRightDomainBorder() {
+        return x(pointsCount - 1);
+    }
+
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() || x > getRightDomainBorder())
+            return Double.NaN;
+
+        int low = 0;
+        int high = pointsCount - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (x(mid) <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int i = low;
+
+        int j = i;
+        while (j > 0 && x - x(j - 1) < EPSILON) {
+            j--;
+        }
+        if (Math.abs(x - x(j)) < EPSILON) return y(j);
+
+        double x1 = x(i);
+        double y1 = y(i);
+        double x2 = x(i + 1);
+        double y2 = y(i + 1);
+
+        if (Math.abs(x - x2) < EPSILON) return y2;
+
+        if (x > x1 && x < x2) {
+            return y1 + (y2 - y1) * (x - x1) / (x2 - x1);
+        }
+
+        return Double.NaN;
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public FunctionPoint getPoint(int index) {
+        checkIndex(index);
+        return new FunctionPoint(x(index), y(index));
+    }
+
+    public double getPointX(int index) {
+        checkIndex(index);
+        return x(index);
+    }
+
+    public double getPointY(int index) {
+        checkIndex(index);
+        return y(index);
+    }
+
+    public void setPoint(int index, FunctionPoint p) throws InappropriateFunctionPointException {
+        setPointX(index, p.getX());
+        setPointY(index, p.getY());
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        checkIndex(index);
+        checkWritable();
+
+        if ((index > 0 && x <= x(index - 1) + EPSILON)
+                || (index < pointsCount - 1 && x >= x(index + 1) - EPSILON)) {
+            throw new InappropriateFunctionPointException("новый x нарушает порядок точек");
+        }
+
+        chunks[index >>> CHUNK_SHIFT].putDouble((index & CHUNK_MASK) * POINT_SIZE, x);
+    }
+
+    public void setPointY(int index, double y) {
+        checkIndex(index);
+        checkWritable();
+
+        chunks[index >>> CHUNK_SHIFT].putDouble((index & CHUNK_MASK) * POINT_SIZE + 8, y);
+    }
+
+    public void addPoint(FunctionPoint p) {
+        throw new UnsupportedOperationException("Нельзя изменить количество точек отображённой функции");
+    }
+
+    public void deletePoint(int index) {
+        throw new UnsupportedOperationException("Нельзя изменить количество точек отображённой функции");
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+
+        for (int i = 0; i < pointsCount; i++) {
+            sb.append("(").append(x(i)).append("; ").append(y(i)).append(")");
+            if (i < pointsCount - 1)
+                sb.append(", ");
+        }
+
+        sb.append("}");
+        return sb.toString();
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TabulatedFunction)) return false;
+
+        TabulatedFunction other = (TabulatedFunction) o;
+
+        if (this.pointsCount != other.getPointsCount()) return false;
+
+        for (int i = 0; i < pointsCount; i++) {
+            if (!this.getPoint(i).equals(other.getPoint(i)))
+                return false;
+        }
+        return true;
+    }
+
+    public int hashCode() {
+        int hash = pointsCount;
+
+        for (int i = 0; i < pointsCount; i++) {
+            long x = Double.doubleToLongBits(x(i));
+            long y = Double.doubleToLongBits(y(i));
+
+            hash ^= (int)(x ^ (x >>> 32));
+            hash ^= (int)(y ^ (y >>> 32));
+        }
+
+        return hash;
+    }
+
+    public Object clone() throws CloneNotSupportedException {
+        throw new CloneNotSupportedException("Отображённая в файл функция не копируется");
+    }
+
+    public Iterator<FunctionPoint> iterator() {
+        return new Iterator<FunctionPoint>() {
+            private int index = 0;
+
+            public boolean hasNext() {
+                return index < pointsCount;
+            }
+
+            public FunctionPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FunctionPoint p = new FunctionPoint(x(index), y(index));
+                index++;
+                return p;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
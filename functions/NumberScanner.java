@@ -0,0 +1,344 @@
+package functions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Чтение чисел, разделённых пробельными символами, прямо из байтов (или символов) источника.
+// Обычная десятичная запись, в том числе с порядком (1e-10, -2.5E+3), разбирается без создания
+// строк и с правильным округлением: точный путь для коротких мантисс, иначе алгоритм Эйзеля-Лемира.
+// Всё остальное (NaN, Infinity, больше 19 значащих цифр) отдаётся Double.parseDouble.
+// Источник с поддержкой mark/reset читается блоками, и finish() возвращает его на символ
+// сразу за последним прочитанным числом; остальные источники читаются по одному символу,
+// чтобы не забрать ничего, кроме одного разделителя после числа.
+final class NumberScanner {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_DIGITS = 19;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // 128-битные нормализованные мантиссы 5^q (а значит, и 10^q) для q из [MIN_EXP10, MAX_EXP10]
+    private static final int MIN_EXP10 = -342;
+    private static final int MAX_EXP10 = 308;
+    private static final long[] POWERS_HIGH = new long[MAX_EXP10 - MIN_EXP10 + 1];
+    private static final long[] POWERS_LOW = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+    static {
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        for (int q = MIN_EXP10; q <= MAX_EXP10; q++) {
+            BigInteger c;
+            if (q >= 0) {
+                c = BigInteger.valueOf(5).pow(q);
+                int bits = c.bitLength();
+                c = bits < 128 ? c.shiftLeft(128 - bits) : c.shiftRight(bits - 128);
+            } else {
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.subtract(BigInteger.ONE).bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0) {
+                    c = c.shiftRight(1);
+                }
+            }
+            POWERS_HIGH[q - MIN_EXP10] = c.shiftRight(64).longValue();
+            POWERS_LOW[q - MIN_EXP10] = c.longValue();
+        }
+    }
+
+    private final InputStream in;
+    private final Reader reader;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final char[] chars;
+    private final int chunk;
+    private int position;
+    private int limit;
+    private int line = 1;
+    private byte[] token = new byte[64];
+    private int tokenLength;
+
+    NumberScanner(InputStream in) {
+        this.in = in;
+        this.reader = null;
+        this.chars = null;
+        this.chunk = in.markSupported() ? BUFFER_SIZE : 1;
+    }
+
+    NumberScanner(Reader reader) {
+        this.in = null;
+        this.reader = reader;
+        this.chars = new char[BUFFER_SIZE];
+        this.chunk = reader.markSupported() ? BUFFER_SIZE : 1;
+    }
+
+    // возвращает источник к первому символу после последнего прочитанного числа
+    void finish() throws IOException {
+        if (chunk == 1 || limit == 0) {
+            return;
+        }
+        long skip = position;
+        if (reader == null) {
+            in.reset();
+            while (skip > 0) {
+                long skipped = in.skip(skip);
+                if (skipped <= 0) {
+                    throw new IOException("Не удалось вернуться к концу прочитанных данных");
+                }
+                skip -= skipped;
+            }
+        } else {
+            reader.reset();
+            while (skip > 0) {
+                long skipped = reader.skip(skip);
+                if (skipped <= 0) {
+                    throw new IOException("Не удалось вернуться к концу прочитанных данных");
+                }
+                skip -= skipped;
+            }
+        }
+        position = limit = 0;
+    }
+
+    int getLine() {
+        return line;
+    }
+
+    double nextDouble() throws IOException {
+        if (!nextToken()) {
+            throw new IOException("Неожиданный конец данных в строке " + line);
+        }
+        double value = parse(token, tokenLength);
+        if (Double.isNaN(value)) {
+            try {
+                return Double.parseDouble(new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1));
+            } catch (NumberFormatException e) {
+                throw new IOException("Ожидалось число в строке " + line + ": "
+                        + new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1));
+            }
+        }
+        return value;
+    }
+
+    int nextCount() throws IOException {
+        double count = nextDouble();
+        if (count < 0 || count != (int) count) {
+            throw new IOException("Неверное количество точек в строке " + line + ": " + count);
+        }
+        return (int) count;
+    }
+
+    // копирует очередную последовательность непробельных байтов в token
+    private boolean nextToken() throws IOException {
+        while (true) {
+            if (position == limit && !refill()) {
+                return false;
+            }
+            byte b = buffer[position];
+            if (!isSpace(b)) {
+                break;
+            }
+            if (b == '\n') {
+                line++;
+            }
+            position++;
+        }
+
+        tokenLength = 0;
+        while (true) {
+            if (position == limit && !refill()) {
+                return true;
+            }
+            byte b = buffer[position];
+            if (isSpace(b)) {
+                return true;
+            }
+            if (tokenLength == token.length) {
+                token = Arrays.copyOf(token, tokenLength * 2);
+            }
+            token[tokenLength++] = b;
+            position++;
+        }
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    private boolean refill() throws IOException {
+        int read;
+        if (reader == null) {
+            if (chunk > 1) {
+                in.mark(chunk);
+            }
+            read = in.read(buffer, 0, chunk);
+        } else {
+            if (chunk > 1) {
+                reader.mark(chunk);
+            }
+            read = reader.read(chars, 0, chunk);
+            for (int i = 0; i < read; i++) {
+                char c = chars[i];
+                // всё, что не ASCII, заведомо не входит в запись числа
+                buffer[i] = c < 0x80 ? (byte) c : (byte) '?';
+            }
+        }
+        if (read <= 0) {
+            position = limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    // NaN означает «не удалось разобрать быстро», и тогда строку разбирает Double.parseDouble
+    static double parse(byte[] s, int length) {
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (s[i] == '-' || s[i] == '+')) {
+            negative = s[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        boolean truncated = false;
+
+        for (; i < length && s[i] >= '0' && s[i] <= '9'; i++) {
+            any = true;
+            int d = s[i] - '0';
+            if (digits == 0 && d == 0) {
+                continue;
+            }
+            if (digits < MAX_DIGITS) {
+                mantissa = mantissa * 10 + d;
+                digits++;
+            } else {
+                exponent++;
+                truncated |= d != 0;
+            }
+        }
+        if (i < length && s[i] == '.') {
+            i++;
+            for (; i < length && s[i] >= '0' && s[i] <= '9'; i++) {
+                any = true;
+                int d = s[i] - '0';
+                if (digits == 0 && d == 0) {
+                    exponent--;
+                } else if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + d;
+                    digits++;
+                    exponent--;
+                } else {
+                    truncated |= d != 0;
+                }
+            }
+        }
+        if (!any) {
+            return Double.NaN;
+        }
+
+        if (i < length && (s[i] == 'e' || s[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (s[i] == '-' || s[i] == '+')) {
+                negativeExponent = s[i] == '-';
+                i++;
+            }
+            if (i == length) {
+                return Double.NaN;
+            }
+            int value = 0;
+            for (; i < length && s[i] >= '0' && s[i] <= '9'; i++) {
+                if (value < 100_000) {
+                    value = value * 10 + (s[i] - '0');
+                }
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != length || truncated) {
+            return Double.NaN;
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        double result;
+        // 19 цифр могут не поместиться в long со знаком: дальше мантисса считается беззнаковой
+        if (mantissa > 0 && mantissa <= (1L << 53) && exponent >= -22 && exponent <= 22) {
+            result = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            result = eiselLemire(mantissa, exponent);
+            if (Double.isNaN(result)) {
+                return Double.NaN;
+            }
+        }
+        return negative ? -result : result;
+    }
+
+    // mantissa * 10^exponent с правильным округлением или NaN, если точности 128 бит не хватило
+    private static double eiselLemire(long mantissa, int exponent) {
+        if (exponent < MIN_EXP10) {
+            return 0.0;
+        }
+        if (exponent > MAX_EXP10) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        int shift = Long.numberOfLeadingZeros(mantissa);
+        mantissa <<= shift;
+        long exponent2 = ((217706L * exponent) >> 16) + 64 + 1023 - shift;
+
+        int index = exponent - MIN_EXP10;
+        long high = multiplyHighUnsigned(mantissa, POWERS_HIGH[index]);
+        long low = mantissa * POWERS_HIGH[index];
+
+        if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + mantissa, mantissa) < 0) {
+            long lowHigh = multiplyHighUnsigned(mantissa, POWERS_LOW[index]);
+            long lowLow = mantissa * POWERS_LOW[index];
+            long mergedHigh = high;
+            long mergedLow = low + lowHigh;
+            if (Long.compareUnsigned(mergedLow, low) < 0) {
+                mergedHigh++;
+            }
+            if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0
+                    && Long.compareUnsigned(lowLow + mantissa, mantissa) < 0) {
+                return Double.NaN;
+            }
+            high = mergedHigh;
+            low = mergedLow;
+        }
+
+        long msb = high >>> 63;
+        long result = high >>> (msb + 9);
+        exponent2 -= 1 ^ msb;
+
+        if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) {
+            return Double.NaN;
+        }
+
+        result += result & 1;
+        result >>>= 1;
+        if ((result >>> 53) > 0) {
+            result >>>= 1;
+            exponent2++;
+        }
+        // денормализованные числа и переполнение оставляем Double.parseDouble
+        if (exponent2 <= 0 || exponent2 >= 0x7FF) {
+            return Double.NaN;
+        }
+        return Double.longBitsToDouble(exponent2 << 52 | result & 0x000FFFFFFFFFFFFFL);
+    }
+
+    private static long multiplyHighUnsigned(long a, long b) {
+        return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+    }
+}
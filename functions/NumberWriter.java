@@ -0,0 +1,289 @@
+package functions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigInteger;
+
+// Запись чисел в текстовом виде без создания объектов на каждое значение: цифры сразу
+// попадают в байтовый буфер и переносятся в поток блоками. Для double выводится кратчайшая
+// десятичная запись, которая читается обратно в то же число (алгоритм Schubfach),
+// в том же виде, что у Double.toString: 0.001, 12.5, 1.0E7, -3.25E-12.
+final class NumberWriter {
+
+    private static final int BLOCK_SIZE = 1 << 15;
+    // самая длинная запись double: -2.2250738585072014E-308
+    private static final int MAX_NUMBER_LENGTH = 32;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << 52;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    // 10^-k как 126-битное число g = g1 * 2^63 + g0 (с избытком), k из [K_MIN, K_MAX]
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long[] G1 = new long[K_MAX - K_MIN + 1];
+    private static final long[] G0 = new long[K_MAX - K_MIN + 1];
+
+    static {
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger power = BigInteger.TEN.pow(-k);
+                int shift = 125 - (power.bitLength() - 1);
+                g = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+            } else {
+                BigInteger power = BigInteger.TEN.pow(k);
+                g = BigInteger.ONE.shiftLeft(125 + power.bitLength()).divide(power);
+            }
+            g = g.add(BigInteger.ONE);
+            G1[k - K_MIN] = g.shiftRight(63).longValue();
+            G0[k - K_MIN] = g.longValue() & MASK_63;
+        }
+    }
+
+    private final OutputStream out;
+    private final Writer writer;
+    private final byte[] buffer = new byte[BLOCK_SIZE + MAX_NUMBER_LENGTH];
+    private final char[] chars;
+    private final byte[] digits = new byte[20];
+    private int size;
+
+    NumberWriter(OutputStream out) {
+        this.out = out;
+        this.writer = null;
+        this.chars = null;
+    }
+
+    NumberWriter(Writer writer) {
+        this.out = null;
+        this.writer = writer;
+        this.chars = new char[buffer.length];
+    }
+
+    NumberWriter write(double value) throws IOException {
+        reserve(MAX_NUMBER_LENGTH);
+        long bits = Double.doubleToRawLongBits(value);
+        int biasedExponent = (int) (bits >>> 52) & 0x7FF;
+        long fraction = bits & (C_MIN - 1);
+
+        if (biasedExponent == 0x7FF) {
+            return ascii(fraction != 0 ? "NaN" : bits < 0 ? "-Infinity" : "Infinity");
+        }
+        if (bits < 0) {
+            buffer[size++] = '-';
+        }
+        if (biasedExponent == 0 && fraction == 0) {
+            return ascii("0.0");
+        }
+
+        long c;
+        int q;
+        if (biasedExponent != 0) {
+            c = C_MIN | fraction;
+            q = biasedExponent - 1075;
+            // целые числа до 2^53 записываются как есть
+            if (q < 0 && q > -53 && (c & ((1L << -q) - 1)) == 0) {
+                writeDecimal(c >> -q, 0);
+                return this;
+            }
+        } else {
+            c = fraction;
+            q = Q_MIN;
+        }
+        toDecimal(q, c);
+        return this;
+    }
+
+    NumberWriter write(int value) throws IOException {
+        reserve(MAX_NUMBER_LENGTH);
+        long v = value;
+        if (v < 0) {
+            buffer[size++] = '-';
+            v = -v;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        while (length > 0) {
+            buffer[size++] = digits[--length];
+        }
+        return this;
+    }
+
+    NumberWriter space() throws IOException {
+        reserve(1);
+        buffer[size++] = ' ';
+        return this;
+    }
+
+    NumberWriter newLine() throws IOException {
+        reserve(LINE_SEPARATOR.length);
+        for (byte b : LINE_SEPARATOR) {
+            buffer[size++] = b;
+        }
+        return this;
+    }
+
+    void flush() throws IOException {
+        drain();
+        if (writer == null) {
+            out.flush();
+        } else {
+            writer.flush();
+        }
+    }
+
+    private void reserve(int length) throws IOException {
+        if (size + length > buffer.length) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (writer == null) {
+            out.write(buffer, 0, size);
+        } else {
+            for (int i = 0; i < size; i++) {
+                chars[i] = (char) buffer[i];
+            }
+            writer.write(chars, 0, size);
+        }
+        size = 0;
+    }
+
+    private NumberWriter ascii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            buffer[size++] = (byte) s.charAt(i);
+        }
+        return this;
+    }
+
+    // кратчайшее f * 10^e из интервала округления числа c * 2^q
+    private void toDecimal(int q, long c) {
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        // у степени двойки нижний сосед вдвое ближе верхнего
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = floorLog10Pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = floorLog10ThreeQuartersPow2(q);
+        }
+        int h = q + floorLog2Pow10(-k) + 2;
+
+        long g1 = G1[k - K_MIN];
+        long g0 = G0[k - K_MIN];
+        long vb = roundToOdd(g1, g0, cb << h);
+        long vbl = roundToOdd(g1, g0, cbl << h);
+        long vbr = roundToOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            long sp10 = s / 10 * 10;
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                writeDecimal(upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            writeDecimal(uin ? s : t, k);
+            return;
+        }
+        long cmp = vb - (s + t << 1);
+        writeDecimal(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k);
+    }
+
+    // (g * cp) / 2^127 с округлением к нечётному, чтобы сравнения с целыми оставались точными
+    private static long roundToOdd(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    private static int floorLog10Pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int floorLog10ThreeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int floorLog2Pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    // f * 10^e в формате Double.toString
+    private void writeDecimal(long f, int e) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + f % 10);
+            f /= 10;
+        } while (f != 0);
+        // digits хранит цифры в обратном порядке; exponent - порядок первой цифры
+        int exponent = e + length - 1;
+
+        if (exponent >= 0 && exponent < 7) {
+            for (int i = 0; i <= exponent; i++) {
+                buffer[size++] = i < length ? digits[length - 1 - i] : (byte) '0';
+            }
+            buffer[size++] = '.';
+            if (length <= exponent + 1) {
+                buffer[size++] = '0';
+            }
+            for (int i = exponent + 1; i < length; i++) {
+                buffer[size++] = digits[length - 1 - i];
+            }
+        } else if (exponent < 0 && exponent >= -3) {
+            buffer[size++] = '0';
+            buffer[size++] = '.';
+            for (int i = -1; i > exponent; i--) {
+                buffer[size++] = '0';
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                buffer[size++] = digits[i];
+            }
+        } else {
+            buffer[size++] = digits[length - 1];
+            buffer[size++] = '.';
+            if (length == 1) {
+                buffer[size++] = '0';
+            }
+            for (int i = length - 2; i >= 0; i--) {
+                buffer[size++] = digits[i];
+            }
+            buffer[size++] = 'E';
+            if (exponent < 0) {
+                buffer[size++] = '-';
+                exponent = -exponent;
+            }
+            if (exponent >= 100) {
+                buffer[size++] = (byte) ('0' + exponent / 100);
+            }
+            if (exponent >= 10) {
+                buffer[size++] = (byte) ('0' + exponent / 10 % 10);
+            }
+            buffer[size++] = (byte) ('0' + exponent % 10);
+        }
+    }
+}
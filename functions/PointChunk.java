@@ -0,0 +1,54 @@
+package functions;
+
+// Очередная порция точек, прочитанная PointChunkReader: length точек,
+// начиная с точки с номером offset в исходной таблице
+public final class PointChunk {
+
+    final double[] xs;
+    final double[] ys;
+    int length;
+    int offset;
+
+    public PointChunk(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Размер порции должен быть положительным");
+        xs = new double[capacity];
+        ys = new double[capacity];
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getCapacity() {
+        return xs.length;
+    }
+
+    public double getX(int i) {
+        checkIndex(i);
+        return xs[i];
+    }
+
+    public double getY(int i) {
+        checkIndex(i);
+        return ys[i];
+    }
+
+    // прямой доступ для пакетной обработки; значимы только первые getLength() элементов
+    public double[] getXs() {
+        return xs;
+    }
+
+    public double[] getYs() {
+        return ys;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= length)
+            throw new FunctionPointIndexOutOfBoundsException("Индекс вне порции: " + i);
+    }
+}
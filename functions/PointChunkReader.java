@@ -0,0 +1,206 @@
+package functions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Потоковое чтение табулированной функции в двоичном или текстовом формате TabulatedFunctions
+// порциями фиксированного размера. В памяти одновременно находится не больше одной порции,
+// поэтому статистику, интегрирование и т. п. можно считать за один проход по файлу любого размера.
+public abstract class PointChunkReader implements Closeable {
+
+    private final int pointsCount;
+    private final int chunkSize;
+    private int position;
+
+    PointChunkReader(int pointsCount, int chunkSize) throws IOException {
+        if (pointsCount < 0) {
+            throw new IOException("Отрицательное количество точек");
+        }
+        this.pointsCount = pointsCount;
+        this.chunkSize = chunkSize;
+    }
+
+    public static PointChunkReader binary(InputStream in, int chunkSize) {
+        checkChunkSize(chunkSize);
+        try {
+            return new Binary(in, chunkSize);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при чтении из потока", e);
+        }
+    }
+
+    public static PointChunkReader text(Reader in, int chunkSize) {
+        checkChunkSize(chunkSize);
+        try {
+            return new Text(in, new NumberScanner(in), chunkSize);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при чтении из символьного потока", e);
+        }
+    }
+
+    public static PointChunkReader text(InputStream in, int chunkSize) {
+        checkChunkSize(chunkSize);
+        try {
+            return new Text(in, new NumberScanner(in), chunkSize);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при чтении из потока", e);
+        }
+    }
+
+    private static void checkChunkSize(int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Размер порции должен быть положительным");
+    }
+
+    // количество точек, объявленное в заголовке
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    // заполняет chunk следующей порцией (не больше его ёмкости); false, если точки закончились
+    public boolean readChunk(PointChunk chunk) {
+        if (position == pointsCount) {
+            return false;
+        }
+        int length = Math.min(Math.min(chunkSize, chunk.getCapacity()), pointsCount - position);
+        try {
+            read(chunk.xs, chunk.ys, length);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при чтении из потока", e);
+        }
+        chunk.offset = position;
+        chunk.length = length;
+        position += length;
+        return true;
+    }
+
+    // все порции передаются в одном и том же объекте PointChunk
+    public void forEachChunk(Consumer<? super PointChunk> action) {
+        PointChunk chunk = newChunk();
+        while (readChunk(chunk)) {
+            action.accept(chunk);
+        }
+    }
+
+    // каждая порция передаётся в новом объекте; обход только последовательный
+    public Spliterator<PointChunk> spliterator() {
+        return new Spliterator<PointChunk>() {
+            public boolean tryAdvance(Consumer<? super PointChunk> action) {
+                PointChunk chunk = newChunk();
+                if (!readChunk(chunk)) {
+                    return false;
+                }
+                action.accept(chunk);
+                return true;
+            }
+
+            public Spliterator<PointChunk> trySplit() {
+                return null;
+            }
+
+            public long estimateSize() {
+                return ((long) pointsCount - position + chunkSize - 1) / chunkSize;
+            }
+
+            public int characteristics() {
+                return ORDERED | NONNULL | SIZED;
+            }
+        };
+    }
+
+    public Stream<PointChunk> chunks() {
+        return StreamSupport.stream(spliterator(), false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new RuntimeException("Ошибка при закрытии потока", e);
+            }
+        });
+    }
+
+    // порция не длиннее всей функции, чтобы большой chunkSize не выделял лишнюю память
+    private PointChunk newChunk() {
+        return new PointChunk(Math.max(1, Math.min(chunkSize, pointsCount)));
+    }
+
+    abstract void read(double[] xs, double[] ys, int length) throws IOException;
+
+    private static final class Binary extends PointChunkReader {
+        private static final int POINT_SIZE = 16;
+        // порция больше буфера читается в несколько заходов
+        private static final int BUFFER_POINTS = 1 << 16;
+
+        private final InputStream in;
+        private final ByteBuffer buffer;
+
+        Binary(InputStream in, int chunkSize) throws IOException {
+            this(in, header(in), chunkSize);
+        }
+
+        private Binary(InputStream in, int pointsCount, int chunkSize) throws IOException {
+            super(pointsCount, chunkSize);
+            this.in = in;
+            // произведение считается в long: chunkSize * 16 переполнило бы int
+            long points = Math.min(Math.min(chunkSize, Math.max(pointsCount, 1)), BUFFER_POINTS);
+            this.buffer = ByteBuffer.allocate((int) (points * POINT_SIZE));
+        }
+
+        private static int header(InputStream in) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            TabulatedFunctions.fill(in, header);
+            return header.getInt(0);
+        }
+
+        void read(double[] xs, double[] ys, int length) throws IOException {
+            int capacity = buffer.capacity() / POINT_SIZE;
+            for (int from = 0; from < length; from += capacity) {
+                int count = Math.min(capacity, length - from);
+                buffer.clear();
+                buffer.limit(count * POINT_SIZE);
+                TabulatedFunctions.fill(in, buffer);
+                buffer.flip();
+                for (int i = from; i < from + count; i++) {
+                    xs[i] = buffer.getDouble();
+                    ys[i] = buffer.getDouble();
+                }
+            }
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class Text extends PointChunkReader {
+        private final Closeable in;
+        private final NumberScanner scanner;
+
+        Text(Closeable in, NumberScanner scanner, int chunkSize) throws IOException {
+            super(scanner.nextCount(), chunkSize);
+            this.in = in;
+            this.scanner = scanner;
+        }
+
+        void read(double[] xs, double[] ys, int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                xs[i] = scanner.nextDouble();
+                ys[i] = scanner.nextDouble();
+            }
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package functions;
+
+import java.io.Externalizable;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+// Индексируемый список с пропусками: вставка, удаление, доступ по индексу и поиск по x за O(log n).
+// width[l] — на сколько позиций вперёд ведёт ссылка next[l]; у последнего узла уровня
+// ссылка ведёт в воображаемую позицию pointsCount.
+public class SkipListTabulatedFunction implements TabulatedFunction, Externalizable {
+
+    private static final long serialVersionUID = 1L;
+    private static final double EPSILON = 1e-10;
+    private static final int MAX_LEVEL = 32;
+
+    private static class Node {
+        double x;
+        double y;
+        final Node[] next;
+        final int[] width;
+
+        Node(double x, double y, int level) {
+            this.x = x;
+            this.y = y;
+            this.next = new Node[level];
+            this.width = new int[level];
+        }
+    }
+
+    private final Random random = new Random();
+    private Node head;
+    private int level;
+    private int pointsCount;
+
+    public SkipListTabulatedFunction() {
+        clear();
+    }
+
+    public SkipListTabulatedFunction(double leftX, double rightX, int pointsCount) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница >= правой");
+        }
+        if (pointsCount < 2) {
+            throw new IllegalArgumentException("Число точек меньше 2");
+        }
+
+        double step = (rightX - leftX) / (pointsCount - 1);
+        double[] xs = new double[pointsCount];
+        for (int i = 0; i < pointsCount; i++) {
+            xs[i] = leftX + i * step;
+        }
+        build(xs, new double[pointsCount], pointsCount);
+    }
+
+    public SkipListTabulatedFunction(double leftX, double rightX, double[] values) {
+        if (leftX >= rightX) {
+            throw new IllegalArgumentException("Левая граница >= правой");
+        }
+        if (values.length < 2) {
+            throw new IllegalArgumentException("Число точек меньше 2");
+        }
+
+        double step = (rightX - leftX) / (values.length - 1);
+        double[] xs = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            xs[i] = leftX + step * i;
+        }
+        build(xs, values, values.length);
+    }
+
+    public SkipListTabulatedFunction(FunctionPoint[] points) {
+        if (points == null || points.length < 2) {
+            throw new IllegalArgumentException("Число точек меньше 2");
+        }
+
+        for (int i = 1; i < points.length; i++) {
+            if (points[i].getX() <= points[i - 1].getX()) {
+                throw new IllegalArgumentException("Точки должны быть упорядочены по возрастанию X");
+            }
+        }
+
+        double[] xs = new double[points.length];
+        double[] ys = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            xs[i] = points[i].getX();
+            ys[i] = points[i].getY();
+        }
+        build(xs, ys, points.length);
+    }
+
+    private void clear() {
+        head = new Node(Double.NaN, Double.NaN, MAX_LEVEL);
+        level = 1;
+        pointsCount = 0;
+        head.width[0] = 1;
+    }
+
+    private int randomLevel() {
+        int result = 1;
+        while (result < MAX_LEVEL && random.nextBoolean()) {
+            result++;
+        }
+        return result;
+    }
+
+    // построение по упорядоченным точкам за O(n)
+    private void build(double[] xs, double[] ys, int count) {
+        clear();
+
+        Node[] last = new Node[MAX_LEVEL];
+        int[] lastPos = new int[MAX_LEVEL];
+        for (int l = 0; l < MAX_LEVEL; l++) {
+            last[l] = head;
+            lastPos[l] = -1;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int nodeLevel = randomLevel();
+            Node node = new Node(xs[i], ys[i], nodeLevel);
+            for (int l = 0; l < nodeLevel; l++) {
+                last[l].next[l] = node;
+                last[l].width[l] = i - lastPos[l];
+                last[l] = node;
+                lastPos[l] = i;
+            }
+            level = Math.max(level, nodeLevel);
+        }
+
+        for (int l = 0; l < level; l++) {
+            last[l].width[l] = count - lastPos[l];
+        }
+        pointsCount = count;
+    }
+
+    private Node getNodeByIndex(int index) {
+        if (index < 0 || index >= pointsCount) {
+            throw new FunctionPointIndexOutOfBoundsException("Индекс вне диапазона: " + index);
+        }
+
+        Node node = head;
+        int pos = -1;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && pos + node.width[l] <= index) {
+                pos += node.width[l];
+                node = node.next[l];
+            }
+        }
+        return node;
+    }
+
+    // последний узел, для которого x - node.x >= EPSILON (или head)
+    private Node lastBefore(double x) {
+        Node node = head;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && x - node.next[l].x >= EPSILON) {
+                node = node.next[l];
+            }
+        }
+        return node;
+    }
+
+    // последний узел с node.x <= x (или head)
+    private Node floor(double x) {
+        Node node = head;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && node.next[l].x <= x) {
+                node = node.next[l];
+            }
+        }
+        return node;
+    }
+
+    public int getPointsCount() {
+        return pointsCount;
+    }
+
+    public FunctionPoint getPoint(int index) {
+        Node node = getNodeByIndex(index);
+        return new FunctionPoint(node.x, node.y);
+    }
+
+    public double getPointX(int index) {
+        return getNodeByIndex(index).x;
+    }
+
+    public double getPointY(int index) {
+        return getNodeByIndex(index).y;
+    }
+
+    public void setPoint(int index, FunctionPoint p) throws InappropriateFunctionPointException {
+        Node node = getNodeByIndex(index);
+        double x = p.getX();
+
+        if (index > 0 && x <= getNodeByIndex(index - 1).x + EPSILON)
+            throw new InappropriateFunctionPointException("X меньше или равен предыдущему");
+        if (index < pointsCount - 1 && x >= node.next[0].x - EPSILON)
+            throw new InappropriateFunctionPointException("X больше или равен следующему");
+
+        node.x = x;
+        node.y = p.getY();
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        setPoint(index, new FunctionPoint(x, getPointY(index)));
+    }
+
+    public void setPointY(int index, double y) {
+        getNodeByIndex(index).y = y;
+    }
+
+    public void deletePoint(int index) {
+        if (pointsCount <= 2)
+            throw new IllegalStateException("Нельзя удалить точку — останется меньше 2 точек");
+        if (index < 0 || index >= pointsCount)
+            throw new FunctionPointIndexOutOfBoundsException("Индекс вне диапазона: " + index);
+
+        Node[] update = new Node[level];
+        Node node = head;
+        int pos = -1;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && pos + node.width[l] < index) {
+                pos += node.width[l];
+                node = node.next[l];
+            }
+            update[l] = node;
+        }
+
+        Node target = update[0].next[0];
+        for (int l = 0; l < level; l++) {
+            if (update[l].next[l] == target) {
+                update[l].width[l] += target.width[l] - 1;
+                update[l].next[l] = target.next[l];
+            } else {
+                update[l].width[l]--;
+            }
+        }
+        pointsCount--;
+    }
+
+    public void addPoint(FunctionPoint p) throws InappropriateFunctionPointException {
+        double x = p.getX();
+
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node node = head;
+        int pos = -1;
+        for (int l = level - 1; l >= 0; l--) {
+            while (node.next[l] != null && node.next[l].x < x) {
+                pos += node.width[l];
+                node = node.next[l];
+            }
+            update[l] = node;
+            rank[l] = pos;
+        }
+
+        Node after = node.next[0];
+        if ((node != head && Math.abs(node.x - x) < EPSILON)
+                || (after != null && Math.abs(after.x - x) < EPSILON))
+            throw new InappropriateFunctionPointException("Точка с таким X уже существует");
+
+        int nodeLevel = randomLevel();
+        for (int l = level; l < nodeLevel; l++) {
+            update[l] = head;
+            rank[l] = -1;
+            head.width[l] = pointsCount + 1;
+        }
+        level = Math.max(level, nodeLevel);
+
+        Node newNode = new Node(x, p.getY(), nodeLevel);
+        int newPos = rank[0] + 1;
+        for (int l = 0; l < nodeLevel; l++) {
+            newNode.next[l] = update[l].next[l];
+            newNode.width[l] = update[l].width[l] - (newPos - rank[l]) + 1;
+            update[l].next[l] = newNode;
+            update[l].width[l] = newPos - rank[l];
+        }
+        for (int l = nodeLevel; l < level; l++) {
+            update[l].width[l]++;
+        }
+        pointsCount++;
+    }
+
+    public double getFunctionValue(double x) {
+        if (x < getLeftDomainBorder() - EPSILON || x > getRightDomainBorder() + EPSILON)
+            return Double.NaN;
+
+        Node near = lastBefore(x).next[0];
+        if (near != null && Math.abs(x - near.x) < EPSILON) return near.y;
+
+        Node a = floor(x);
+        Node b = a.next[0];
+        if (a != head && b != null && x > a.x && x < b.x)
+            return a.y + (b.y - a.y) * (x - a.x) / (b.x - a.x);
+
+        return Double.NaN;
+    }
+
+    public double getLeftDomainBorder() {
+        return pointsCount == 0 ? Double.NaN : head.next[0].x;
+    }
+
+    public double getRightDomainBorder() {
+        return pointsCount == 0 ? Double.NaN : getNodeByIndex(pointsCount - 1).x;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(pointsCount);
+
+        for (Node node = head.next[0]; node != null; node = node.next[0]) {
+            out.writeDouble(node.x);
+            out.writeDouble(node.y);
+        }
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        int size = in.readInt();
+
+        if (size < 2) {
+            throw new IOException("Недостаточно точек для создания функции");
+        }
+
+        double[] xs = new double[size];
+        double[] ys = new double[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = in.readDouble();
+            ys[i] = in.readDouble();
+        }
+        build(xs, ys, size);
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+
+        for (Node node = head.next[0]; node != null; node = node.next[0]) {
+            sb.append("(").append(node.x).append("; ").append(node.y).append(")");
+
+            if (node.next[0] != null) sb.append(", ");
+        }
+
+        sb.append("}");
+        return sb.toString();
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TabulatedFunction)) return false;
+
+        TabulatedFunction other = (TabulatedFunction) o;
+
+        if (this.pointsCount != other.getPointsCount()) return false;
+
+        Iterator<FunctionPoint> b = other.iterator();
+        for (Node node = head.next[0]; node != null; node = node.next[0]) {
+            if (!new FunctionPoint(node.x, node.y).equals(b.next()))
+                return false;
+        }
+        return true;
+    }
+
+    public int hashCode() {
+        int hash = pointsCount;
+
+        for (Node node = head.next[0]; node != null; node = node.next[0]) {
+            long x = Double.doubleToLongBits(node.x);
+            long y = Double.doubleToLongBits(node.y);
+
+            hash ^= (int)(x ^ (x >>> 32));
+            hash ^= (int)(y ^ (y >>> 32));
+        }
+
+        return hash;
+    }
+
+    public Object clone() {
+        double[] xs = new double[pointsCount];
+        double[] ys = new double[pointsCount];
+        int i = 0;
+        for (Node node = head.next[0]; node != null; node = node.next[0]) {
+            xs[i] = node.x;
+            ys[i] = node.y;
+            i++;
+        }
+
+        SkipListTabulatedFunction clone = new SkipListTabulatedFunction();
+        clone.build(xs, ys, pointsCount);
+        return clone;
+    }
+
+    public Iterator<FunctionPoint> iterator() {
+        return new Iterator<FunctionPoint>() {
+
+            private Node current = head.next[0];
+
+            public boolean hasNext() {
+                return current != null;
+            }
+
+            public FunctionPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                FunctionPoint p = new FunctionPoint(current.x, current.y);
+                current = current.next[0];
+                return p;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    public static class SkipListTabulatedFunctionFactory implements TabulatedFunctionFactory {
+
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, int pointsCount) {
+            return new SkipListTabulatedFunction(leftX, rightX, pointsCount);
+        }
+
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, double[] values) {
+            return new SkipListTabulatedFunction(leftX, rightX, values);
+        }
+
+        public TabulatedFunction createTabulatedFunction(FunctionPoint[] points) {
+            return new SkipListTabulatedFunction(points);
+        }
+    }
+}
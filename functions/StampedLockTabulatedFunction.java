@@ -0,0 +1,248 @@
+package functions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+// Обёртка над любой табулированной функцией для совместного использования потоками.
+// У функций на массивах простые чтения сначала выполняются оптимистично без блокировки;
+// если за это время была запись (или чтение упало на несогласованных данных), оно повторяется
+// под блокировкой чтения. Остальные функции читаются только под блокировкой.
+public class StampedLockTabulatedFunction implements TabulatedFunction {
+
+    private final TabulatedFunction function;
+    private final StampedLock lock = new StampedLock();
+    // оптимистичное чтение выполняет код функции параллельно с записью, поэтому допускается
+    // только для классов, которые читают лишь массивы примитивов и ссылок: на несогласованных
+    // данных они в худшем случае выходят за границу массива, но не зацикливаются и не выделяют
+    // память по прочитанному размеру. Подклассы и обёртки сюда не относятся
+    private final boolean optimistic;
+    // LinkedListTabulatedFunction и CompressedTabulatedFunction меняют свои кэши при чтении,
+    // а про незнакомую функцию (в том числе обёртку над ними) это неизвестно, поэтому
+    // одновременные чтения разрешены только для функций, которые при чтении ничего не меняют
+    private final boolean sharedReads;
+
+    public StampedLockTabulatedFunction(TabulatedFunction function) {
+        Class<?> type = function.getClass();
+        this.function = function;
+        this.optimistic = type == ArrayTabulatedFunction.class || type == DoubleArrayTabulatedFunction.class;
+        this.sharedReads = optimistic || type == SkipListTabulatedFunction.class
+                || type == MappedTabulatedFunction.class;
+    }
+
+    private double readDouble(DoubleSupplier reader) {
+        if (optimistic) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    double result = reader.getAsDouble();
+                    if (lock.validate(stamp)) {
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    if (lock.validate(stamp)) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        long stamp = lockForRead();
+        try {
+            return reader.getAsDouble();
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        if (optimistic) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    T result = reader.get();
+                    if (lock.validate(stamp)) {
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    if (lock.validate(stamp)) {
+                        throw e;
+                    }
+                }
+            }
+        }
+        return readLocked(reader);
+    }
+
+    // для чтений, которые обходят все точки или вызывают чужой код
+    private <T> T readLocked(Supplier<T> reader) {
+        long stamp = lockForRead();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    private long lockForRead() {
+        return sharedReads ? lock.readLock() : lock.writeLock();
+    }
+
+    public double getLeftDomainBorder() {
+        return readDouble(function::getLeftDomainBorder);
+    }
+
+    public double getRightDomainBorder() {
+        return readDouble(function::getRightDomainBorder);
+    }
+
+    public double getFunctionValue(double x) {
+        return readDouble(() -> function.getFunctionValue(x));
+    }
+
+    public int getPointsCount() {
+        return read(function::getPointsCount);
+    }
+
+    public FunctionPoint getPoint(int index) {
+        return read(() -> function.getPoint(index));
+    }
+
+    public double getPointX(int index) {
+        return readDouble(() -> function.getPointX(index));
+    }
+
+    public double getPointY(int index) {
+        return readDouble(() -> function.getPointY(index));
+    }
+
+    public void setPoint(int index, FunctionPoint point) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            function.setPoint(index, point);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void setPointX(int index, double x) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            function.setPointX(index, x);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void setPointY(int index, double y) {
+        long stamp = lock.writeLock();
+        try {
+            function.setPointY(index, y);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void addPoint(FunctionPoint point) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            function.addPoint(point);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void deletePoint(int index) {
+        long stamp = lock.writeLock();
+        try {
+            function.deletePoint(index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        long stamp = lock.writeLock();
+        try {
+            function.addPoints(points);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void deletePoints(int fromIndex, int toIndex) {
+        long stamp = lock.writeLock();
+        try {
+            function.deletePoints(fromIndex, toIndex);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void deletePoints(int[] indices) {
+        long stamp = lock.writeLock();
+        try {
+            function.deletePoints(indices);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public String toString() {
+        return readLocked(function::toString);
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return readLocked(() -> function.equals(o));
+    }
+
+    public int hashCode() {
+        return readLocked(function::hashCode);
+    }
+
+    public Object clone() throws CloneNotSupportedException {
+        long stamp = lockForRead();
+        try {
+            return new StampedLockTabulatedFunction((TabulatedFunction) function.clone());
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    // обход идёт по согласованной копии точек, снятой в момент вызова
+    public Iterator<FunctionPoint> iterator() {
+        return readLocked(() -> {
+            List<FunctionPoint> points = new ArrayList<>();
+            for (FunctionPoint p : function) {
+                points.add(p);
+            }
+            return Collections.unmodifiableList(points);
+        }).iterator();
+    }
+
+    public static class StampedLockTabulatedFunctionFactory implements TabulatedFunctionFactory {
+
+        private final TabulatedFunctionFactory factory;
+
+        public StampedLockTabulatedFunctionFactory(TabulatedFunctionFactory factory) {
+            this.factory = factory;
+        }
+
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, int pointsCount) {
+            return new StampedLockTabulatedFunction(factory.createTabulatedFunction(leftX, rightX, pointsCount));
+        }
+
+        public TabulatedFunction createTabulatedFunction(double leftX, double rightX, double[] values) {
+            return new StampedLockTabulatedFunction(factory.createTabulatedFunction(leftX, rightX, values));
+        }
+
+        public TabulatedFunction createTabulatedFunction(FunctionPoint[] points) {
+            return new StampedLockTabulatedFunction(factory.createTabulatedFunction(points));
+        }
+    }
+}
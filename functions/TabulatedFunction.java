@@ -20,6 +20,33 @@ public interface TabulatedFunction extends Function, Cloneable, Iterable<Functio
 
     void deletePoint(int index);
 
+    // пакет может быть не упорядочен; при ошибке функция не меняется
+    default void addPoints(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        FunctionPoint[] batch = TabulatedFunctions.prepareBatch(points);
+        for (FunctionPoint p : batch) {
+            if (TabulatedFunctions.containsX(this, p.getX()))
+                throw new InappropriateFunctionPointException("точка с таким x уже существует");
+        }
+        for (FunctionPoint p : batch) {
+            addPoint(p);
+        }
+    }
+
+    // удаляет точки с индексами fromIndex (включительно) .. toIndex (не включительно)
+    default void deletePoints(int fromIndex, int toIndex) {
+        TabulatedFunctions.checkRange(fromIndex, toIndex, getPointsCount(), 2);
+        for (int i = fromIndex; i < toIndex; i++) {
+            deletePoint(fromIndex);
+        }
+    }
+
+    default void deletePoints(int[] indices) {
+        int[] sorted = TabulatedFunctions.prepareIndices(indices, getPointsCount(), 2);
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            deletePoint(sorted[i]);
+        }
+    }
+
     Object clone() throws CloneNotSupportedException;
 
 }
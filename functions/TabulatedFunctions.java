@@ -3,13 +3,15 @@ import java.io.OutputStream;
 import java.io.InputStream;
 import java.io.Writer;
 import java.io.Reader;
-import java.io.DataOutputStream;
-import java.io.DataInputStream;
-import java.io.PrintWriter;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.StreamTokenizer;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Comparator;
 
 public class TabulatedFunctions {
 
@@ -28,73 +30,274 @@ public class TabulatedFunctions {
         double step = (rightX - leftX) / (pointsCount - 1);
         double[] values = new double[pointsCount];
         for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + step * i;
-            values[i] = function.getFunctionValue(x);
+            values[i] = leftX + step * i;
         }
+        function.getFunctionValues(values, 0, values, 0, pointsCount);
 
         return createTabulatedFunction(leftX, rightX, values);
     }
 
     public static void outputTabulatedFunction(TabulatedFunction function, OutputStream out) {
-        try (DataOutputStream dos = new DataOutputStream(out)) {
-            int count = function.getPointsCount();
-            dos.writeInt(count);
-            for (int i = 0; i < count; i++) {
-                dos.writeDouble(function.getPointX(i));
-                dos.writeDouble(function.getPointY(i));
-            }
+        try (OutputStream os = out) {
+            writeBinary(function, ByteBuffer.allocate(IO_BLOCK_SIZE),
+                    block -> os.write(block.array(), block.arrayOffset() + block.position(), block.remaining()));
         } catch (IOException e) {
             throw new RuntimeException("Ошибка при записи в поток", e);
         }
     }
 
+    // канал не закрывается: им, как и позицией в файле, управляет вызывающий код
+    public static void outputTabulatedFunction(TabulatedFunction function, WritableByteChannel out) {
+        try {
+            writeBinary(function, ByteBuffer.allocateDirect(IO_BLOCK_SIZE), block -> {
+                while (block.hasRemaining()) {
+                    out.write(block);
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при записи в канал", e);
+        }
+    }
+
     public static TabulatedFunction inputTabulatedFunction(InputStream in) {
-        try (DataInputStream dis = new DataInputStream(in)) {
-            int count = dis.readInt();
-            double[] xValues = new double[count];
-            double[] yValues = new double[count];
-            for (int i = 0; i < count; i++) {
-                xValues[i] = dis.readDouble();
-                yValues[i] = dis.readDouble();
-            }
-            return createTabulatedFunction(xValues[0], xValues[count - 1], yValues);
+        try (InputStream is = in) {
+            double[][] points = readBinary(ByteBuffer.allocate(IO_BLOCK_SIZE), block -> fill(is, block));
+            double[] xValues = points[0];
+            double[] yValues = points[1];
+            return createTabulatedFunction(xValues[0], xValues[xValues.length - 1], yValues);
         } catch (IOException e) {
             throw new RuntimeException("Ошибка при чтении из потока", e);
         }
     }
 
-    public static void writeTabulatedFunction(TabulatedFunction function, Writer out) {
-        try (PrintWriter pw = new PrintWriter(out)) {
-            int count = function.getPointsCount();
-            pw.println(count);
-            for (int i = 0; i < count; i++) {
-                pw.println(function.getPointX(i) + " " + function.getPointY(i));
+    public static TabulatedFunction inputTabulatedFunction(ReadableByteChannel in) {
+        try {
+            double[][] points = readBinary(ByteBuffer.allocateDirect(IO_BLOCK_SIZE), block -> {
+                while (block.hasRemaining()) {
+                    if (in.read(block) < 0) throw new EOFException();
+                }
+            });
+            double[] xValues = points[0];
+            double[] yValues = points[1];
+            return createTabulatedFunction(xValues[0], xValues[xValues.length - 1], yValues);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при чтении из канала", e);
+        }
+    }
+
+    // сжатый поблочный формат CompressedTabulatedFunction
+    public static void outputCompressedTabulatedFunction(TabulatedFunction function, OutputStream out) {
+        outputCompressedTabulatedFunction(function, out, CompressedTabulatedFunction.DEFAULT_BLOCK_SIZE);
+    }
+
+    public static void outputCompressedTabulatedFunction(TabulatedFunction function, OutputStream out, int blockSize) {
+        try (OutputStream os = out) {
+            CompressedTabulatedFunction.write(function, os, blockSize);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при записи в поток", e);
+        }
+    }
+
+    public static TabulatedFunction inputCompressedTabulatedFunction(InputStream in) {
+        try (InputStream is = in) {
+            return new CompressedTabulatedFunction(ByteBuffer.wrap(is.readAllBytes())).toTabulatedFunction();
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при чтении из потока", e);
+        }
+    }
+
+    // двоичный формат тот же, что у DataOutputStream: int количество, затем пары x y (big-endian),
+    // но значения переносятся через буфер блоками по IO_BLOCK_SIZE байт
+    private static final int IO_BLOCK_SIZE = 1 << 20;
+    private static final int POINT_SIZE = 16;
+
+    private interface BlockSink {
+        void write(ByteBuffer block) throws IOException;
+    }
+
+    private interface BlockSource {
+        void fill(ByteBuffer block) throws IOException;
+    }
+
+    private static void writeBinary(TabulatedFunction function, ByteBuffer buffer, BlockSink sink) throws IOException {
+        int count = function.getPointsCount();
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < POINT_SIZE) {
+                buffer.flip();
+                sink.write(buffer);
+                buffer.clear();
             }
-            pw.flush();
-        } catch (Exception e) {
+            buffer.putDouble(function.getPointX(i));
+            buffer.putDouble(function.getPointY(i));
+        }
+        buffer.flip();
+        sink.write(buffer);
+    }
+
+    private static double[][] readBinary(ByteBuffer buffer, BlockSource source) throws IOException {
+        buffer.limit(4);
+        source.fill(buffer);
+        buffer.flip();
+        int count = buffer.getInt();
+        if (count < 0) {
+            throw new IOException("Отрицательное количество точек");
+        }
+
+        double[] xValues = new double[count];
+        double[] yValues = new double[count];
+        int blockPoints = buffer.capacity() / POINT_SIZE;
+        for (int i = 0; i < count; ) {
+            int chunk = Math.min(blockPoints, count - i);
+            buffer.clear();
+            buffer.limit(chunk * POINT_SIZE);
+            source.fill(buffer);
+            buffer.flip();
+            for (int end = i + chunk; i < end; i++) {
+                xValues[i] = buffer.getDouble();
+                yValues[i] = buffer.getDouble();
+            }
+        }
+        return new double[][]{xValues, yValues};
+    }
+
+    static void fill(InputStream in, ByteBuffer block) throws IOException {
+        byte[] array = block.array();
+        while (block.hasRemaining()) {
+            int read = in.read(array, block.arrayOffset() + block.position(), block.remaining());
+            if (read < 0) throw new EOFException();
+            block.position(block.position() + read);
+        }
+    }
+
+    public static void writeTabulatedFunction(TabulatedFunction function, Writer out) {
+        try (Writer w = out) {
+            writeText(function, new NumberWriter(w));
+        } catch (IOException e) {
             throw new RuntimeException("Ошибка при записи в символьный поток", e);
         }
     }
 
+    // тот же текстовый формат, но сразу в байты (ASCII)
+    public static void writeTabulatedFunction(TabulatedFunction function, OutputStream out) {
+        try (OutputStream os = out) {
+            writeText(function, new NumberWriter(os));
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при записи в поток", e);
+        }
+    }
+
+    // поток не закрывается и прочитан не дальше разделителя после последнего числа, так что
+    // после таблицы в нём могут идти другие данные; поток без mark/reset (FileReader,
+    // FileInputStream) читается по одному символу, поэтому его лучше обернуть в BufferedReader
+    // или BufferedInputStream
     public static TabulatedFunction readTabulatedFunction(Reader in) {
-        StreamTokenizer tokenizer = new StreamTokenizer(in);
         try {
-            tokenizer.nextToken();
-            int count = (int) tokenizer.nval;
-            double[] xValues = new double[count];
-            double[] yValues = new double[count];
+            double[][] points = readText(new NumberScanner(in));
+            double[] xValues = points[0];
+            double[] yValues = points[1];
+            return createTabulatedFunction(xValues[0], xValues[xValues.length - 1], yValues);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при чтении из символьного потока", e);
+        }
+    }
+
+    // то же для текста в ASCII, с теми же правилами чтения потока
+    public static TabulatedFunction readTabulatedFunction(InputStream in) {
+        try {
+            double[][] points = readText(new NumberScanner(in));
+            double[] xValues = points[0];
+            double[] yValues = points[1];
+            return createTabulatedFunction(xValues[0], xValues[xValues.length - 1], yValues);
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка при чтении из потока", e);
+        }
+    }
 
-            for (int i = 0; i < count; i++) {
-                tokenizer.nextToken();
-                xValues[i] = tokenizer.nval;
-                tokenizer.nextToken();
-                yValues[i] = tokenizer.nval;
+    private static void writeText(TabulatedFunction function, NumberWriter writer) throws IOException {
+        int count = function.getPointsCount();
+        writer.write(count).newLine();
+        for (int i = 0; i < count; i++) {
+            writer.write(function.getPointX(i)).space().write(function.getPointY(i)).newLine();
+        }
+        writer.flush();
+    }
+
+    private static double[][] readText(NumberScanner scanner) throws IOException {
+        int count = scanner.nextCount();
+        double[] xValues = new double[count];
+        double[] yValues = new double[count];
+        for (int i = 0; i < count; i++) {
+            xValues[i] = scanner.nextDouble();
+            yValues[i] = scanner.nextDouble();
+        }
+        scanner.finish();
+        return new double[][]{xValues, yValues};
+    }
+
+    private static final double EPSILON = 1e-10;
+
+    // копия пакета, упорядоченная по x, без совпадающих точек
+    static FunctionPoint[] prepareBatch(FunctionPoint[] points) throws InappropriateFunctionPointException {
+        FunctionPoint[] batch = new FunctionPoint[points.length];
+        boolean sorted = true;
+        for (int i = 0; i < points.length; i++) {
+            batch[i] = new FunctionPoint(points[i]);
+            if (i > 0 && batch[i].getX() < batch[i - 1].getX()) {
+                sorted = false;
             }
+        }
+        if (!sorted) {
+            Arrays.sort(batch, Comparator.comparingDouble(FunctionPoint::getX));
+        }
 
-            return createTabulatedFunction(xValues[0], xValues[count - 1], yValues);
-        } catch (IOException e) {
-            throw new RuntimeException("Ошибка при чтении из символьного потока", e);
+        for (int i = 1; i < batch.length; i++) {
+            if (batch[i].getX() - batch[i - 1].getX() < EPSILON)
+                throw new InappropriateFunctionPointException("в пакете есть точки с одинаковым x");
         }
+        return batch;
+    }
+
+    static boolean containsX(TabulatedFunction function, double x) {
+        int count = function.getPointsCount();
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (function.getPointX(mid) < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return (low > 0 && Math.abs(function.getPointX(low - 1) - x) < EPSILON)
+                || (low < count && Math.abs(function.getPointX(low) - x) < EPSILON);
+    }
+
+    static void checkRange(int fromIndex, int toIndex, int pointsCount, int minPoints) {
+        if (fromIndex < 0 || toIndex > pointsCount || fromIndex > toIndex)
+            throw new FunctionPointIndexOutOfBoundsException("неверный диапазон индексов");
+        if (pointsCount - (toIndex - fromIndex) < minPoints)
+            throw new IllegalStateException("Нельзя удалить точки — останется меньше " + minPoints + " точек");
+    }
+
+    // упорядоченные индексы без повторов
+    static int[] prepareIndices(int[] indices, int pointsCount, int minPoints) {
+        int[] sorted = indices.clone();
+        Arrays.sort(sorted);
+
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] < 0 || sorted[i] >= pointsCount)
+                throw new FunctionPointIndexOutOfBoundsException("неверный индекс");
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        if (pointsCount - count < minPoints)
+            throw new IllegalStateException("Нельзя удалить точки — останется меньше " + minPoints + " точек");
+
+        return Arrays.copyOf(sorted, count);
     }
 
     private static TabulatedFunctionFactory factory = new ArrayTabulatedFunction.ArrayTabulatedFunctionFactory();
@@ -161,9 +364,9 @@ public class TabulatedFunctions {
         double step = (rightX - leftX) / (pointsCount - 1);
         double[] values = new double[pointsCount];
         for (int i = 0; i < pointsCount; i++) {
-            double x = leftX + step * i;
-            values[i] = function.getFunctionValue(x);
+            values[i] = leftX + step * i;
         }
+        function.getFunctionValues(values, 0, values, 0, pointsCount);
 
         return createTabulatedFunction(clazz, leftX, rightX, values);
     }
@@ -171,19 +374,17 @@ public class TabulatedFunctions {
             Reader in,
             Class<? extends TabulatedFunction> clazz) {
 
-        StreamTokenizer tokenizer = new StreamTokenizer(in);
+        NumberScanner scanner = new NumberScanner(in);
         try {
-            tokenizer.nextToken();
-            int count = (int) tokenizer.nval;
+            int count = scanner.nextCount();
 
             FunctionPoint[] points = new FunctionPoint[count];
             for (int i = 0; i < count; i++) {
-                tokenizer.nextToken();
-                double x = tokenizer.nval;
-                tokenizer.nextToken();
-                double y = tokenizer.nval;
+                double x = scanner.nextDouble();
+                double y = scanner.nextDouble();
                 points[i] = new FunctionPoint(x, y);
             }
+            scanner.finish();
 
             return createTabulatedFunction(clazz, points);
 
@@ -195,14 +396,14 @@ public class TabulatedFunctions {
             InputStream in,
             Class<? extends TabulatedFunction> clazz) {
 
-        try (DataInputStream dis = new DataInputStream(in)) {
-            int count = dis.readInt();
+        try (InputStream is = in) {
+            double[][] values = readBinary(ByteBuffer.allocate(IO_BLOCK_SIZE), block -> fill(is, block));
+            int count = values[0].length;
 
+            // отражённому конструктору нужны именно объекты FunctionPoint
             FunctionPoint[] points = new FunctionPoint[count];
             for (int i = 0; i < count; i++) {
-                double x = dis.readDouble();
-                double y = dis.readDouble();
-                points[i] = new FunctionPoint(x, y);
+                points[i] = new FunctionPoint(values[0][i], values[1][i]);
             }
 
             return createTabulatedFunction(clazz, points);
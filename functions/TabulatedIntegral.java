@@ -0,0 +1,69 @@
+package functions;
+
+// Точный интеграл кусочно-линейной функции по любому отрезку за O(log n).
+// Строится по снимку точек: после изменения исходной функции его нужно создать заново.
+public class TabulatedIntegral {
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] prefix;
+
+    public TabulatedIntegral(TabulatedFunction f) {
+        int count = f.getPointsCount();
+        xs = new double[count];
+        ys = new double[count];
+        prefix = new double[count];
+
+        int i = 0;
+        for (FunctionPoint p : f) {
+            xs[i] = p.getX();
+            ys[i] = p.getY();
+            if (i > 0) {
+                prefix[i] = prefix[i - 1] + (ys[i - 1] + ys[i]) * (xs[i] - xs[i - 1]) / 2.0;
+            }
+            i++;
+        }
+    }
+
+    public double getLeftDomainBorder() {
+        return xs[0];
+    }
+
+    public double getRightDomainBorder() {
+        return xs[xs.length - 1];
+    }
+
+    public double integrate(double left, double right) {
+        if (left < getLeftDomainBorder() || right > getRightDomainBorder()) {
+            throw new IllegalArgumentException("Интервал интегрирования выходит за границы функции");
+        }
+        if (left >= right) {
+            return 0.0;
+        }
+
+        return antiderivative(right) - antiderivative(left);
+    }
+
+    // интеграл от левой границы до x
+    private double antiderivative(double x) {
+        int low = 0;
+        int high = xs.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (xs[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        double x1 = xs[low];
+        double y1 = ys[low];
+        if (x == x1) {
+            return prefix[low];
+        }
+
+        double y = y1 + (ys[low + 1] - y1) * (x - x1) / (xs[low + 1] - x1);
+        return prefix[low] + (y1 + y) * (x - x1) / 2.0;
+    }
+}
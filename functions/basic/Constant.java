@@ -0,0 +1,41 @@
+package functions.basic;
+
+import functions.Function;
+import java.util.Arrays;
+
+public class Constant implements Function {
+
+    private final double value;
+    private final double leftDomainBorder;
+    private final double rightDomainBorder;
+
+    public Constant(double value) {
+        this(value, -Double.MAX_VALUE, Double.MAX_VALUE);
+    }
+
+    public Constant(double value, double leftDomainBorder, double rightDomainBorder) {
+        this.value = value;
+        this.leftDomainBorder = leftDomainBorder;
+        this.rightDomainBorder = rightDomainBorder;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getLeftDomainBorder() {
+        return leftDomainBorder;
+    }
+
+    public double getRightDomainBorder() {
+        return rightDomainBorder;
+    }
+
+    public double getFunctionValue(double x) {
+        return value;
+    }
+
+    public void getFunctionValues(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        Arrays.fill(out, outOffset, outOffset + length, value);
+    }
+}
@@ -0,0 +1,34 @@
+package functions.basic;
+
+import functions.Function;
+
+public class Identity implements Function {
+
+    private final double leftDomainBorder;
+    private final double rightDomainBorder;
+
+    public Identity() {
+        this(-Double.MAX_VALUE, Double.MAX_VALUE);
+    }
+
+    public Identity(double leftDomainBorder, double rightDomainBorder) {
+        this.leftDomainBorder = leftDomainBorder;
+        this.rightDomainBorder = rightDomainBorder;
+    }
+
+    public double getLeftDomainBorder() {
+        return leftDomainBorder;
+    }
+
+    public double getRightDomainBorder() {
+        return rightDomainBorder;
+    }
+
+    public double getFunctionValue(double x) {
+        return x;
+    }
+
+    public void getFunctionValues(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        System.arraycopy(xs, xsOffset, out, outOffset, length);
+    }
+}
@@ -13,6 +13,10 @@ public class Log implements Function {
         this.base = base;
     }
 
+    public double getBase() {
+        return base;
+    }
+
     public double getLeftDomainBorder() {
         return Double.MIN_VALUE;
     }
@@ -25,4 +29,12 @@ public class Log implements Function {
         if (x <= 0) return Double.NaN;
         return Math.log(x) / Math.log(base);
     }
+
+    public void getFunctionValues(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        double logBase = Math.log(base);
+        for (int i = 0; i < length; i++) {
+            double x = xs[xsOffset + i];
+            out[outOffset + i] = x <= 0 ? Double.NaN : Math.log(x) / logBase;
+        }
+    }
 }
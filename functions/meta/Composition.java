@@ -11,6 +11,14 @@ public class Composition implements Function {
         this.f2 = f2;
     }
 
+    public Function getF1() {
+        return f1;
+    }
+
+    public Function getF2() {
+        return f2;
+    }
+
     public double getLeftDomainBorder() {
         return f2.getLeftDomainBorder();
     }
@@ -22,4 +30,9 @@ public class Composition implements Function {
     public double getFunctionValue(double x) {
         return f1.getFunctionValue(f2.getFunctionValue(x));
     }
+
+    public void getFunctionValues(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        f2.getFunctionValues(xs, xsOffset, out, outOffset, length);
+        f1.getFunctionValues(out, outOffset, out, outOffset, length);
+    }
 }
@@ -0,0 +1,166 @@
+package functions.meta;
+
+import functions.Function;
+import functions.basic.Constant;
+import functions.basic.Cos;
+import functions.basic.Exp;
+import functions.basic.Identity;
+import functions.basic.Log;
+import functions.basic.Sin;
+import functions.basic.Tan;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// Сворачивает дерево из functions.meta и functions.basic в одну цепочку MethodHandle,
+// так что вычисление не проходит через виртуальные вызовы getFunctionValue каждого узла.
+// Узлы других типов (например, табулированные функции) вызываются как есть.
+public final class FunctionCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType UNARY = MethodType.methodType(double.class, double.class);
+    private static final MethodType BINARY = MethodType.methodType(double.class, double.class, double.class);
+
+    private static final MethodHandle SIN = find(Math.class, "sin", UNARY);
+    private static final MethodHandle COS = find(Math.class, "cos", UNARY);
+    private static final MethodHandle TAN = find(Math.class, "tan", UNARY);
+    private static final MethodHandle EXP = find(Math.class, "exp", UNARY);
+    private static final MethodHandle POW = find(Math.class, "pow", BINARY);
+    private static final MethodHandle LOG = find(FunctionCompiler.class, "log", BINARY);
+    private static final MethodHandle ADD = find(FunctionCompiler.class, "add", BINARY);
+    private static final MethodHandle SUBTRACT = find(FunctionCompiler.class, "subtract", BINARY);
+    private static final MethodHandle MULTIPLY = find(FunctionCompiler.class, "multiply", BINARY);
+    private static final MethodHandle DIVIDE = find(FunctionCompiler.class, "divide", BINARY);
+    private static final MethodHandle GET_FUNCTION_VALUE;
+
+    static {
+        try {
+            GET_FUNCTION_VALUE = LOOKUP.findVirtual(Function.class, "getFunctionValue", UNARY);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private FunctionCompiler() {
+        throw new UnsupportedOperationException("Нельзя создавать экземпляры класса FunctionCompiler");
+    }
+
+    public static Function compile(Function f) {
+        return new CompiledFunction(f.getLeftDomainBorder(), f.getRightDomainBorder(), toHandle(f));
+    }
+
+    private static MethodHandle toHandle(Function f) {
+        Class<?> type = f.getClass();
+
+        if (type == Sin.class) return SIN;
+        if (type == Cos.class) return COS;
+        if (type == Tan.class) return TAN;
+        if (type == Exp.class) return EXP;
+        if (type == Identity.class) return MethodHandles.identity(double.class);
+        if (type == Constant.class) {
+            return MethodHandles.dropArguments(
+                    MethodHandles.constant(double.class, ((Constant) f).getValue()), 0, double.class);
+        }
+        if (type == Log.class) {
+            return MethodHandles.insertArguments(LOG, 1, Math.log(((Log) f).getBase()));
+        }
+
+        if (type == Sum.class) {
+            Sum sum = (Sum) f;
+            return binary(ADD, toHandle(sum.getF1()), toHandle(sum.getF2()));
+        }
+        if (type == Mult.class) {
+            Mult mult = (Mult) f;
+            return binary(MULTIPLY, toHandle(mult.getF1()), toHandle(mult.getF2()));
+        }
+        if (type == Composition.class) {
+            Composition composition = (Composition) f;
+            return MethodHandles.filterReturnValue(toHandle(composition.getF2()), toHandle(composition.getF1()));
+        }
+        if (type == Power.class) {
+            Power power = (Power) f;
+            return MethodHandles.filterReturnValue(toHandle(power.getBaseFunction()),
+                    MethodHandles.insertArguments(POW, 1, power.getPower()));
+        }
+        if (type == Scale.class) {
+            Scale scale = (Scale) f;
+            MethodHandle inner = MethodHandles.filterArguments(toHandle(scale.getFunction()), 0,
+                    MethodHandles.insertArguments(DIVIDE, 1, scale.getScaleX()));
+            return MethodHandles.filterReturnValue(inner,
+                    MethodHandles.insertArguments(MULTIPLY, 1, scale.getScaleY()));
+        }
+        if (type == Shift.class) {
+            Shift shift = (Shift) f;
+            MethodHandle inner = MethodHandles.filterArguments(toHandle(shift.getFunction()), 0,
+                    MethodHandles.insertArguments(SUBTRACT, 1, shift.getShiftX()));
+            return MethodHandles.filterReturnValue(inner,
+                    MethodHandles.insertArguments(ADD, 1, shift.getShiftY()));
+        }
+
+        return GET_FUNCTION_VALUE.bindTo(f);
+    }
+
+    // op(f1(x), f2(x))
+    private static MethodHandle binary(MethodHandle op, MethodHandle f1, MethodHandle f2) {
+        return MethodHandles.permuteArguments(MethodHandles.filterArguments(op, 0, f1, f2), UNARY, 0, 0);
+    }
+
+    private static MethodHandle find(Class<?> owner, String name, MethodType type) {
+        try {
+            return LOOKUP.findStatic(owner, name, type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static double log(double x, double logBase) {
+        if (x <= 0) return Double.NaN;
+        return Math.log(x) / logBase;
+    }
+
+    private static double add(double a, double b) {
+        return a + b;
+    }
+
+    private static double subtract(double a, double b) {
+        return a - b;
+    }
+
+    private static double multiply(double a, double b) {
+        return a * b;
+    }
+
+    private static double divide(double a, double b) {
+        return a / b;
+    }
+
+    private static final class CompiledFunction implements Function {
+        private final double leftDomainBorder;
+        private final double rightDomainBorder;
+        private final MethodHandle handle;
+
+        CompiledFunction(double leftDomainBorder, double rightDomainBorder, MethodHandle handle) {
+            this.leftDomainBorder = leftDomainBorder;
+            this.rightDomainBorder = rightDomainBorder;
+            this.handle = handle;
+        }
+
+        public double getLeftDomainBorder() {
+            return leftDomainBorder;
+        }
+
+        public double getRightDomainBorder() {
+            return rightDomainBorder;
+        }
+
+        public double getFunctionValue(double x) {
+            try {
+                return (double) handle.invokeExact(x);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
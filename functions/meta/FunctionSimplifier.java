@@ -0,0 +1,199 @@
+package functions.meta;
+
+import functions.Function;
+import functions.basic.Constant;
+import functions.basic.Exp;
+import functions.basic.Identity;
+import functions.basic.Log;
+
+// Упрощает дерево из functions.meta снизу вверх. Каждое преобразование принимается,
+// только если границы области определения нового узла в точности совпадают с исходными.
+public final class FunctionSimplifier {
+
+    private FunctionSimplifier() {
+        throw new UnsupportedOperationException("Нельзя создавать экземпляры класса FunctionSimplifier");
+    }
+
+    public static Function simplify(Function f) {
+        if (f instanceof Sum) {
+            Sum sum = (Sum) f;
+            Function f1 = simplify(sum.getF1());
+            Function f2 = simplify(sum.getF2());
+            return simplifyNode(f1 == sum.getF1() && f2 == sum.getF2() ? f : new Sum(f1, f2));
+        }
+        if (f instanceof Mult) {
+            Mult mult = (Mult) f;
+            Function f1 = simplify(mult.getF1());
+            Function f2 = simplify(mult.getF2());
+            return simplifyNode(f1 == mult.getF1() && f2 == mult.getF2() ? f : new Mult(f1, f2));
+        }
+        if (f instanceof Composition) {
+            Composition composition = (Composition) f;
+            Function f1 = simplify(composition.getF1());
+            Function f2 = simplify(composition.getF2());
+            return simplifyNode(f1 == composition.getF1() && f2 == composition.getF2()
+                    ? f : new Composition(f1, f2));
+        }
+        if (f instanceof Power) {
+            Power power = (Power) f;
+            Function base = simplify(power.getBaseFunction());
+            return simplifyNode(base == power.getBaseFunction() ? f : new Power(base, power.getPower()));
+        }
+        if (f instanceof Scale) {
+            Scale scale = (Scale) f;
+            Function inner = simplify(scale.getFunction());
+            return simplifyNode(inner == scale.getFunction()
+                    ? f : new Scale(inner, scale.getScaleX(), scale.getScaleY()));
+        }
+        if (f instanceof Shift) {
+            Shift shift = (Shift) f;
+            Function inner = simplify(shift.getFunction());
+            return simplifyNode(inner == shift.getFunction()
+                    ? f : new Shift(inner, shift.getShiftX(), shift.getShiftY()));
+        }
+        return f;
+    }
+
+    public static int countNodes(Function f) {
+        if (f instanceof Sum) {
+            return 1 + countNodes(((Sum) f).getF1()) + countNodes(((Sum) f).getF2());
+        }
+        if (f instanceof Mult) {
+            return 1 + countNodes(((Mult) f).getF1()) + countNodes(((Mult) f).getF2());
+        }
+        if (f instanceof Composition) {
+            return 1 + countNodes(((Composition) f).getF1()) + countNodes(((Composition) f).getF2());
+        }
+        if (f instanceof Power) {
+            return 1 + countNodes(((Power) f).getBaseFunction());
+        }
+        if (f instanceof Scale) {
+            return 1 + countNodes(((Scale) f).getFunction());
+        }
+        if (f instanceof Shift) {
+            return 1 + countNodes(((Shift) f).getFunction());
+        }
+        return 1;
+    }
+
+    // дети узла уже упрощены; каждое правило уменьшает число узлов, поэтому повтор конечен
+    private static Function simplifyNode(Function f) {
+        Function candidate = rewrite(f);
+        if (candidate == null || !sameDomain(f, candidate)) {
+            return f;
+        }
+        return simplifyNode(candidate);
+    }
+
+    private static Function rewrite(Function f) {
+        if (f instanceof Scale) {
+            Scale scale = (Scale) f;
+            Function inner = scale.getFunction();
+            if (inner instanceof Scale) {
+                Scale innerScale = (Scale) inner;
+                return new Scale(innerScale.getFunction(), innerScale.getScaleX() * scale.getScaleX(),
+                        innerScale.getScaleY() * scale.getScaleY());
+            }
+            if (scale.getScaleX() == 1 && scale.getScaleY() == 1) {
+                return inner;
+            }
+        }
+
+        if (f instanceof Shift) {
+            Shift shift = (Shift) f;
+            Function inner = shift.getFunction();
+            if (inner instanceof Shift) {
+                Shift innerShift = (Shift) inner;
+                return new Shift(innerShift.getFunction(), innerShift.getShiftX() + shift.getShiftX(),
+                        innerShift.getShiftY() + shift.getShiftY());
+            }
+            if (shift.getShiftX() == 0 && shift.getShiftY() == 0) {
+                return inner;
+            }
+        }
+
+        if (f instanceof Power && ((Power) f).getPower() == 1) {
+            return ((Power) f).getBaseFunction();
+        }
+
+        if (f instanceof Sum) {
+            Function f1 = ((Sum) f).getF1();
+            Function f2 = ((Sum) f).getF2();
+            if (f1 instanceof Constant && f2 instanceof Constant) {
+                return new Constant(((Constant) f1).getValue() + ((Constant) f2).getValue(),
+                        f.getLeftDomainBorder(), f.getRightDomainBorder());
+            }
+            if (f2 instanceof Constant) {
+                return new Shift(f1, 0, ((Constant) f2).getValue());
+            }
+            if (f1 instanceof Constant) {
+                return new Shift(f2, 0, ((Constant) f1).getValue());
+            }
+        }
+
+        if (f instanceof Mult) {
+            Function f1 = ((Mult) f).getF1();
+            Function f2 = ((Mult) f).getF2();
+            if (f1 instanceof Constant && f2 instanceof Constant) {
+                return new Constant(((Constant) f1).getValue() * ((Constant) f2).getValue(),
+                        f.getLeftDomainBorder(), f.getRightDomainBorder());
+            }
+            if (f2 instanceof Constant) {
+                return new Scale(f1, 1, ((Constant) f2).getValue());
+            }
+            if (f1 instanceof Constant) {
+                return new Scale(f2, 1, ((Constant) f1).getValue());
+            }
+        }
+
+        if (f instanceof Composition) {
+            Function outer = ((Composition) f).getF1();
+            Function inner = ((Composition) f).getF2();
+            // exp(ln x) = x на области определения логарифма; вне её композиция даёт NaN,
+            // поэтому вместо Identity - тождество с проверкой области определения.
+            // Логарифм по другому основанию даёт степень, а не тождество
+            if (outer instanceof Exp && inner instanceof Log && Math.log(((Log) inner).getBase()) == 1) {
+                return new DomainIdentity(f.getLeftDomainBorder(), f.getRightDomainBorder());
+            }
+            if (outer instanceof Identity) {
+                return inner;
+            }
+            if (inner instanceof Identity) {
+                return outer;
+            }
+            if (outer instanceof Constant) {
+                return new Constant(((Constant) outer).getValue(), f.getLeftDomainBorder(), f.getRightDomainBorder());
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean sameDomain(Function a, Function b) {
+        return Double.compare(a.getLeftDomainBorder(), b.getLeftDomainBorder()) == 0
+                && Double.compare(a.getRightDomainBorder(), b.getRightDomainBorder()) == 0;
+    }
+
+    // x на [leftDomainBorder, rightDomainBorder], NaN вне этого отрезка
+    private static final class DomainIdentity implements Function {
+        private final double leftDomainBorder;
+        private final double rightDomainBorder;
+
+        DomainIdentity(double leftDomainBorder, double rightDomainBorder) {
+            this.leftDomainBorder = leftDomainBorder;
+            this.rightDomainBorder = rightDomainBorder;
+        }
+
+        public double getLeftDomainBorder() {
+            return leftDomainBorder;
+        }
+
+        public double getRightDomainBorder() {
+            return rightDomainBorder;
+        }
+
+        public double getFunctionValue(double x) {
+            return x >= leftDomainBorder && x <= rightDomainBorder ? x : Double.NaN;
+        }
+    }
+}
@@ -11,6 +11,14 @@ public class Power implements Function {
         this.power = power;
     }
 
+    public Function getBaseFunction() {
+        return baseFunction;
+    }
+
+    public double getPower() {
+        return power;
+    }
+
     public double getLeftDomainBorder() {
         return baseFunction.getLeftDomainBorder();
     }
@@ -22,4 +30,11 @@ public class Power implements Function {
     public double getFunctionValue(double x) {
         return Math.pow(baseFunction.getFunctionValue(x), power);
     }
+
+    public void getFunctionValues(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        baseFunction.getFunctionValues(xs, xsOffset, out, outOffset, length);
+        for (int i = outOffset; i < outOffset + length; i++) {
+            out[i] = Math.pow(out[i], power);
+        }
+    }
 }
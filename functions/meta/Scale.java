@@ -13,6 +13,18 @@ public class Scale implements Function {
         this.scaleY = scaleY;
     }
 
+    public Function getFunction() {
+        return f;
+    }
+
+    public double getScaleX() {
+        return scaleX;
+    }
+
+    public double getScaleY() {
+        return scaleY;
+    }
+
     public double getLeftDomainBorder() {
         return f.getLeftDomainBorder() * scaleX;
     }
@@ -24,4 +36,14 @@ public class Scale implements Function {
     public double getFunctionValue(double x) {
         return f.getFunctionValue(x / scaleX) * scaleY;
     }
+
+    public void getFunctionValues(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = xs[xsOffset + i] / scaleX;
+        }
+        f.getFunctionValues(out, outOffset, out, outOffset, length);
+        for (int i = outOffset; i < outOffset + length; i++) {
+            out[i] *= scaleY;
+        }
+    }
 }
@@ -13,6 +13,18 @@ public class Shift implements Function {
         this.shiftY = shiftY;
     }
 
+    public Function getFunction() {
+        return f;
+    }
+
+    public double getShiftX() {
+        return shiftX;
+    }
+
+    public double getShiftY() {
+        return shiftY;
+    }
+
     public double getLeftDomainBorder() {
         return f.getLeftDomainBorder() + shiftX;
     }
@@ -24,4 +36,14 @@ public class Shift implements Function {
     public double getFunctionValue(double x) {
         return f.getFunctionValue(x - shiftX) + shiftY;
     }
+
+    public void getFunctionValues(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = xs[xsOffset + i] - shiftX;
+        }
+        f.getFunctionValues(out, outOffset, out, outOffset, length);
+        for (int i = outOffset; i < outOffset + length; i++) {
+            out[i] += shiftY;
+        }
+    }
 }
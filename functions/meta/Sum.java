@@ -11,6 +11,14 @@ public class Sum implements Function {
         this.f2 = f2;
     }
 
+    public Function getF1() {
+        return f1;
+    }
+
+    public Function getF2() {
+        return f2;
+    }
+
     public double getLeftDomainBorder() {
         return Math.max(f1.getLeftDomainBorder(), f2.getLeftDomainBorder());
     }
@@ -22,4 +30,13 @@ public class Sum implements Function {
     public double getFunctionValue(double x) {
         return f1.getFunctionValue(x) + f2.getFunctionValue(x);
     }
+
+    public void getFunctionValues(double[] xs, int xsOffset, double[] out, int outOffset, int length) {
+        double[] second = new double[length];
+        f2.getFunctionValues(xs, xsOffset, second, 0, length);
+        f1.getFunctionValues(xs, xsOffset, out, outOffset, length);
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] += second[i];
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package functions.threads;
+
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Сводка по результатам в памяти: количество, среднее, минимум и максимум значений интегралов
+// и гистограмма времени интегрирования. Счётчики распределены по потокам, поэтому
+// запись из многих интеграторов почти не конкурирует; итоги собираются при чтении.
+public class AggregateResultSink implements ResultSink {
+
+    private final LongAdder sources = new LongAdder();
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+    private final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+    private final DoubleAccumulator max = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public void source(IntegrationTask task) {
+        sources.increment();
+    }
+
+    public void result(IntegrationTask task, double result, long nanos) {
+        count.increment();
+        sum.add(result);
+        min.accumulate(result);
+        max.accumulate(result);
+        latency.record(nanos);
+    }
+
+    public void error(IntegrationTask task, IllegalArgumentException e) {
+        errors.increment();
+    }
+
+    public long getSourceCount() {
+        return sources.sum();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? Double.NaN : sum.sum() / n;
+    }
+
+    public double getMin() {
+        return count.sum() == 0 ? Double.NaN : min.get();
+    }
+
+    public double getMax() {
+        return count.sum() == 0 ? Double.NaN : max.get();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public String toString() {
+        return String.format("Sources %d, results %d, errors %d, mean %.8f, min %.8f, max %.8f, latency %s",
+                getSourceCount(), getCount(), getErrorCount(), getMean(), getMin(), getMax(), latency);
+    }
+}
@@ -0,0 +1,231 @@
+package functions.threads;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Передача заданий между потоками через кольцевой буфер на N мест. В отличие от SemaphoreSlot
+// писатель и читатель не обязаны чередоваться: писатель кладёт пачку заданий за один захват
+// блокировки, читатель забирает до K заданий за одно пробуждение, а будят друг друга они,
+// только если другая сторона действительно ждёт. Время ожидания каждой стороны накапливается,
+// чтобы по нему можно было подобрать размер буфера.
+public class BatchSemaphoreSlot {
+
+    private final IntegrationTask[] slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition notEmpty = lock.newCondition();
+
+    private int head;
+    private int size;
+    private boolean closed;
+    private int producers;
+    private int waitingWriters;
+    private int waitingReaders;
+
+    private long writerBlockedNanos;
+    private long readerBlockedNanos;
+    private long writerWaits;
+    private long readerWaits;
+    private long published;
+    private long drained;
+
+    public BatchSemaphoreSlot(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Число мест должно быть положительным");
+        }
+        slots = new IntegrationTask[capacity];
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    // кладёт count заданий, начиная с from; пачка больше свободного места
+    // передаётся частями по мере того, как читатели освобождают буфер
+    public void publish(IntegrationTask[] tasks, int from, int count) throws InterruptedException {
+        lock.lock();
+        try {
+            while (count > 0) {
+                if (closed) {
+                    throw new IllegalStateException("Передача заданий уже закрыта");
+                }
+                if (size == slots.length) {
+                    waitingWriters++;
+                    long start = System.nanoTime();
+                    try {
+                        notFull.await();
+                    } finally {
+                        waitingWriters--;
+                        writerBlockedNanos += System.nanoTime() - start;
+                        writerWaits++;
+                    }
+                    continue;
+                }
+
+                int n = Math.min(count, slots.length - size);
+                int tail = head + size;
+                for (int i = 0; i < n; i++) {
+                    slots[(tail + i) % slots.length] = tasks[from + i];
+                }
+                size += n;
+                published += n;
+                from += n;
+                count -= n;
+                if (waitingReaders > 0) {
+                    notEmpty.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void publish(IntegrationTask task) throws InterruptedException {
+        publish(new IntegrationTask[]{task}, 0, 1);
+    }
+
+    // ждёт хотя бы одно задание и забирает до max заданий в into;
+    // 0 означает, что передача закрыта и все задания уже разобраны
+    public int drain(IntegrationTask[] into, int max) throws InterruptedException {
+        lock.lock();
+        try {
+            while (size == 0) {
+                if (closed) {
+                    return 0;
+                }
+                waitingReaders++;
+                long start = System.nanoTime();
+                try {
+                    notEmpty.await();
+                } finally {
+                    waitingReaders--;
+                    readerBlockedNanos += System.nanoTime() - start;
+                    readerWaits++;
+                }
+            }
+
+            int n = Math.min(Math.min(max, into.length), size);
+            for (int i = 0; i < n; i++) {
+                into[i] = slots[head];
+                slots[head] = null;
+                head = (head + 1) % slots.length;
+            }
+            size -= n;
+            drained += n;
+            if (waitingWriters > 0) {
+                notFull.signalAll();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // писатель сообщает о себе до начала работы; передача закрывается,
+    // когда закончит последний из зарегистрированных писателей
+    public void registerProducer() {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Передача заданий уже закрыта");
+            }
+            producers++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void producerDone() {
+        lock.lock();
+        try {
+            if (producers == 0) {
+                throw new IllegalStateException("Нет зарегистрированных писателей");
+            }
+            if (--producers == 0) {
+                close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // новых заданий не будет; читатели разбирают оставшиеся и получают 0
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWriterBlockedTime(TimeUnit unit) {
+        lock.lock();
+        try {
+            return unit.convert(writerBlockedNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getReaderBlockedTime(TimeUnit unit) {
+        lock.lock();
+        try {
+            return unit.convert(readerBlockedNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // сколько раз писатели ждали свободного места
+    public long getWriterWaits() {
+        lock.lock();
+        try {
+            return writerWaits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // сколько раз читатели ждали новых заданий
+    public long getReaderWaits() {
+        lock.lock();
+        try {
+            return readerWaits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getPublishedCount() {
+        lock.lock();
+        try {
+            return published;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDrainedCount() {
+        lock.lock();
+        try {
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String toString() {
+        lock.lock();
+        try {
+            return String.format("published %d, drained %d, writers blocked %d times for %.3f ms, "
+                            + "readers blocked %d times for %.3f ms",
+                    published, drained, writerWaits, writerBlockedNanos / 1e6, readerWaits, readerBlockedNanos / 1e6);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package functions.threads;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Запись событий в файл отдельным потоком. Вызывающие потоки только кладут событие
+// в ограниченную очередь (и ждут, если файл не успевает за ними); форматирование строк
+// и запись идут в потоке записи пачками, со сбросом буфера после каждой пачки.
+// Строки те же, что печатает ResultSink.CONSOLE.
+public class FileResultSink implements ResultSink, Closeable {
+
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final int BATCH_SIZE = 1024;
+
+    private static final int SOURCE = 0;
+    private static final int RESULT = 1;
+    private static final int ERROR = 2;
+    private static final Event CLOSE = new Event(-1, null, 0, null);
+
+    private static final class Event {
+        final int kind;
+        final IntegrationTask task;
+        final double result;
+        final String message;
+
+        Event(int kind, IntegrationTask task, double result, String message) {
+            this.kind = kind;
+            this.task = task;
+            this.result = result;
+            this.message = message;
+        }
+    }
+
+    private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Writer writer;
+    private final Thread thread;
+    // вызывающие потоки кладут события под блокировкой чтения, close() отмечает закрытие
+    // под блокировкой записи: так CLOSE попадает в очередь после всех принятых событий
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+    private volatile IOException failure;
+
+    public FileResultSink(Path path) throws IOException {
+        this(Files.newBufferedWriter(path));
+    }
+
+    // writer закрывается вместе с приёмником
+    public FileResultSink(Writer writer) {
+        this.writer = writer;
+        this.thread = new Thread(this::write, "FileResultSink");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void source(IntegrationTask task) {
+        put(new Event(SOURCE, task, 0, null));
+    }
+
+    public void result(IntegrationTask task, double result, long nanos) {
+        put(new Event(RESULT, task, result, null));
+    }
+
+    public void error(IntegrationTask task, IllegalArgumentException e) {
+        put(new Event(ERROR, task, 0, e.getMessage()));
+    }
+
+    // при прерывании событие теряется, а флаг прерывания восстанавливается,
+    // чтобы вызывающий поток завершился на ближайшей точке ожидания
+    private void put(Event event) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Приёмник результатов уже закрыт");
+            }
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void write() {
+        List<Event> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder line = new StringBuilder();
+        Formatter formatter = new Formatter(line);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (Event event : batch) {
+                    if (event == CLOSE) {
+                        writer.flush();
+                        return;
+                    }
+                    line.setLength(0);
+                    format(event, formatter);
+                    writer.append(line);
+                }
+                batch.clear();
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            // поток записи не прерывается никем, кроме close()
+        } catch (IOException e) {
+            failure = e;
+            // очередь продолжает разбираться, чтобы вызывающие потоки не зависли
+            if (!batch.contains(CLOSE)) {
+                drainAfterFailure();
+            }
+        }
+    }
+
+    private void drainAfterFailure() {
+        try {
+            while (queue.take() != CLOSE) {
+                // событие отбрасывается
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private static void format(Event event, Formatter formatter) {
+        IntegrationTask task = event.task;
+        switch (event.kind) {
+            case SOURCE:
+                formatter.format("Source %.4f %.4f %.4f%n", task.getLeftX(), task.getRightX(), task.getStep());
+                break;
+            case RESULT:
+                formatter.format("Result %.4f %.4f %.4f %.8f%n",
+                        task.getLeftX(), task.getRightX(), task.getStep(), event.result);
+                break;
+            default:
+                formatter.format("Ошибка интегрирования: %s%n", event.message);
+                break;
+        }
+    }
+
+    // дожидается записи всех уже переданных событий
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        boolean queued = false;
+        while (thread.isAlive()) {
+            try {
+                if (!queued) {
+                    queue.put(CLOSE);
+                    queued = true;
+                }
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
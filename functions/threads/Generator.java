@@ -8,14 +8,47 @@ public class Generator extends Thread {
 
     private final Task task;
     private final SemaphoreSlot semaphore;
+    private final BatchSemaphoreSlot batchSlot;
+    private final int batchSize;
+    private final ResultSink sink;
     private final Random rnd = new Random();
 
     public Generator(Task task, SemaphoreSlot semaphore) {
+        this(task, semaphore, ResultSink.CONSOLE);
+    }
+
+    public Generator(Task task, SemaphoreSlot semaphore, ResultSink sink) {
         this.task = task;
         this.semaphore = semaphore;
+        this.batchSlot = null;
+        this.batchSize = 1;
+        this.sink = sink;
+    }
+
+    // task задаёт только количество заданий; они кладутся в slot пачками по batchSize.
+    // Генератор регистрируется в slot сразу, и передача закрывается, когда закончат
+    // (или будут прерваны) все генераторы, пишущие в неё
+    public Generator(Task task, BatchSemaphoreSlot slot, int batchSize) {
+        this(task, slot, batchSize, ResultSink.CONSOLE);
+    }
+
+    public Generator(Task task, BatchSemaphoreSlot slot, int batchSize, ResultSink sink) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным");
+        }
+        this.task = task;
+        this.semaphore = null;
+        this.batchSlot = slot;
+        this.batchSize = batchSize;
+        this.sink = sink;
+        slot.registerProducer();
     }
 
     public void run() {
+        if (batchSlot != null) {
+            runBatched();
+            return;
+        }
         for (int i = 0; i < task.getCount(); i++) {
             try {
                 semaphore.acquireWrite();
@@ -32,7 +65,7 @@ public class Generator extends Thread {
                 task.setRightX(right);
                 task.setStep(step);
 
-                System.out.printf("Source %.4f %.4f %.4f%n", left, right, step);
+                sink.source(new IntegrationTask(logFunc, left, right, step));
 
                 semaphore.releaseWrite();
 
@@ -44,4 +77,23 @@ public class Generator extends Thread {
             }
         }
     }
+
+    private void runBatched() {
+        IntegrationTask[] batch = new IntegrationTask[batchSize];
+        try {
+            for (int i = 0; i < task.getCount(); ) {
+                int n = Math.min(batchSize, task.getCount() - i);
+                for (int j = 0; j < n; j++) {
+                    batch[j] = IntegrationTask.random(rnd);
+                    sink.source(batch[j]);
+                }
+                batchSlot.publish(batch, 0, n);
+                i += n;
+            }
+        } catch (InterruptedException e) {
+            System.out.println("Generator прерван");
+        } finally {
+            batchSlot.producerDone();
+        }
+    }
 }
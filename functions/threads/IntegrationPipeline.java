@@ -0,0 +1,219 @@
+package functions.threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Конвейер «несколько генераторов - несколько интеграторов» через ограниченную очередь.
+// Генераторы блокируются, когда очередь заполнена (обратное давление); интеграторы забирают
+// задания пачками, поэтому блокировка очереди берётся один раз на много заданий.
+// Завершение: после последнего генератора в очередь кладётся по одному «пустому» заданию
+// на каждого интегратора, так что всё уже поставленное в очередь будет посчитано.
+public class IntegrationPipeline {
+
+    private static final IntegrationTask POISON = new IntegrationTask(null, 0, 0, 0);
+    private static final int DRAIN_BATCH = 64;
+
+    private final BlockingQueue<IntegrationTask> queue;
+    private final Supplier<IntegrationTask> source;
+    private final ResultSink sink;
+    private final Thread[] producers;
+    private final Thread[] consumers;
+
+    private final AtomicInteger activeProducers;
+    private final LongAdder produced = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean stopping;
+    private volatile boolean aborted;
+    private boolean started;
+
+    // source вызывается из нескольких генераторов сразу
+    public IntegrationPipeline(int capacity, int producerCount, int consumerCount,
+                               Supplier<IntegrationTask> source, ResultSink sink) {
+        if (capacity < 1 || producerCount < 1 || consumerCount < 1) {
+            throw new IllegalArgumentException("Размер очереди и число потоков должны быть положительными");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.source = source;
+        this.sink = sink;
+        this.producers = new Thread[producerCount];
+        this.consumers = new Thread[consumerCount];
+        this.activeProducers = new AtomicInteger(producerCount);
+    }
+
+    // задания делятся между генераторами поровну; метод не ждёт окончания работы
+    public synchronized void start(long tasks) {
+        if (started) {
+            throw new IllegalStateException("Конвейер уже запущен");
+        }
+        if (tasks < 0) {
+            throw new IllegalArgumentException("Количество заданий не может быть отрицательным");
+        }
+        started = true;
+
+        for (int i = 0; i < consumers.length; i++) {
+            consumers[i] = new Thread(this::consume, "Integrator-" + i);
+        }
+        for (int i = 0; i < producers.length; i++) {
+            long share = tasks / producers.length + (i < tasks % producers.length ? 1 : 0);
+            producers[i] = new Thread(() -> produce(share), "Generator-" + i);
+        }
+        for (Thread consumer : consumers) {
+            consumer.start();
+        }
+        for (Thread producer : producers) {
+            producer.start();
+        }
+    }
+
+    private void produce(long count) {
+        try {
+            for (long i = 0; i < count && !stopping; i++) {
+                IntegrationTask task = source.get();
+                sink.source(task);
+                queue.put(task);
+                produced.increment();
+            }
+        } catch (InterruptedException e) {
+            System.out.println("Generator прерван");
+        } catch (RuntimeException | Error e) {
+            abort(e);
+        } finally {
+            if (activeProducers.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+    }
+
+    // последний генератор закрывает очередь; после shutdownNow() интеграторы уже прерваны
+    // и очередь никто не разбирает, так что «пустые» задания не нужны и не поместились бы
+    private void finish() {
+        if (aborted) {
+            return;
+        }
+        try {
+            for (int i = 0; i < consumers.length; i++) {
+                queue.put(POISON);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consume() {
+        List<IntegrationTask> batch = new ArrayList<>(DRAIN_BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                for (IntegrationTask task : batch) {
+                    if (task == POISON) {
+                        // лишние «пустые» задания из этой пачки достаются остальным интеграторам
+                        returnPoison(batch);
+                        return;
+                    }
+                    integrate(task);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            System.out.println("Integrator прерван");
+        } catch (RuntimeException | Error e) {
+            abort(e);
+        }
+    }
+
+    private void returnPoison(List<IntegrationTask> batch) throws InterruptedException {
+        boolean own = false;
+        for (IntegrationTask task : batch) {
+            if (task == POISON) {
+                if (own) {
+                    queue.put(POISON);
+                }
+                own = true;
+            }
+        }
+    }
+
+    private void integrate(IntegrationTask task) {
+        double result;
+        long start = System.nanoTime();
+        try {
+            result = task.integrate();
+        } catch (IllegalArgumentException e) {
+            failed.increment();
+            sink.error(task, e);
+            return;
+        }
+        sink.result(task, result, System.nanoTime() - start);
+        completed.increment();
+    }
+
+    private void abort(Throwable e) {
+        failure.compareAndSet(null, e);
+        shutdownNow();
+    }
+
+    // генераторы перестают создавать задания, уже поставленные в очередь будут посчитаны
+    public void shutdown() {
+        stopping = true;
+    }
+
+    // все потоки прерываются, задания в очереди отбрасываются
+    public void shutdownNow() {
+        aborted = true;
+        stopping = true;
+        for (Thread producer : producers) {
+            if (producer != null) producer.interrupt();
+        }
+        for (Thread consumer : consumers) {
+            if (consumer != null) consumer.interrupt();
+        }
+    }
+
+    // true, если все потоки завершились за отведённое время; ошибка в любом из потоков
+    // (например, в приёмнике результатов) останавливает конвейер и выбрасывается здесь
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread[] threads : new Thread[][]{producers, consumers}) {
+            for (Thread thread : threads) {
+                if (thread == null) {
+                    continue;
+                }
+                long left = deadline - System.nanoTime();
+                if (left > 0) {
+                    TimeUnit.NANOSECONDS.timedJoin(thread, left);
+                }
+                if (thread.isAlive()) {
+                    return false;
+                }
+            }
+        }
+        Throwable e = failure.get();
+        if (e != null) {
+            throw new IllegalStateException("Конвейер остановлен из-за ошибки", e);
+        }
+        return true;
+    }
+
+    public long getProducedCount() {
+        return produced.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    // задания, которые Functions.integrate отверг (например, из-за шага или границ)
+    public long getFailedCount() {
+        return failed.sum();
+    }
+}
@@ -0,0 +1,215 @@
+package functions.threads;
+
+import functions.Functions;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Планировщик заданий на пуле с перехватом работы (ForkJoinPool). Стоимость задания
+// оценивается числом шагов (rightX - leftX) / step. Дешёвые задания считаются целиком,
+// дорогие режутся на части по сетке шагов, которые свободные потоки забирают себе,
+// а частичные суммы складываются обратно. Так одно длинное задание не держит за собой
+// очередь из коротких. Частей не больше половины потоков пула: поток сначала разбирает
+// свою очередь и только потом берёт новые задания, поэтому задание, разрезанное на всех,
+// остановило бы короткие до своего конца.
+// По умолчанию порог разбиения не задан заранее, а следует за потоком заданий: дорогим
+// считается задание в SPLIT_FACTOR раз дороже медианы уже поступивших, но не дешевле
+// MIN_SPLIT_COST.
+public class IntegrationScheduler implements AutoCloseable {
+
+    public static final long MIN_SPLIT_COST = 1 << 13;
+    public static final long SPLIT_FACTOR = 16;
+    // медиана пересчитывается раз в столько заданий
+    private static final long MEDIAN_INTERVAL = 256;
+
+    private final ForkJoinPool pool;
+    private final boolean ownPool;
+    // 0 - порог вычисляется по медиане стоимости
+    private final long splitCost;
+    private final LatencyHistogram costs = new LatencyHistogram();
+    private final AtomicLong submitted = new AtomicLong();
+    private volatile long adaptiveSplitCost = MIN_SPLIT_COST;
+    private final ResultSink sink;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder split = new LongAdder();
+
+    public IntegrationScheduler(int parallelism, ResultSink sink) {
+        this(new ForkJoinPool(parallelism), true, 0, sink);
+    }
+
+    // пул не принадлежит планировщику и не закрывается им
+    public IntegrationScheduler(ForkJoinPool pool, ResultSink sink) {
+        this(pool, false, 0, sink);
+    }
+
+    // постоянный порог разбиения в шагах вместо вычисляемого по медиане
+    public IntegrationScheduler(ForkJoinPool pool, long splitCost, ResultSink sink) {
+        this(pool, false, checkSplitCost(splitCost), sink);
+    }
+
+    private IntegrationScheduler(ForkJoinPool pool, boolean ownPool, long splitCost, ResultSink sink) {
+        this.pool = pool;
+        this.ownPool = ownPool;
+        this.splitCost = splitCost;
+        this.sink = sink;
+    }
+
+    private static long checkSplitCost(long splitCost) {
+        if (splitCost < 1) {
+            throw new IllegalArgumentException("Порог разбиения должен быть положительным");
+        }
+        return splitCost;
+    }
+
+    // число шагов интегрирования
+    public static double cost(IntegrationTask task) {
+        return (task.getRightX() - task.getLeftX()) / task.getStep();
+    }
+
+    // задания дороже этого числа шагов режутся на части
+    public long getSplitCost() {
+        return splitCost != 0 ? splitCost : adaptiveSplitCost;
+    }
+
+    // время, которое приёмник получает вместе с результатом, отсчитывается от этого вызова,
+    // то есть включает и ожидание в очереди пула
+    public ForkJoinTask<Double> submit(IntegrationTask task) {
+        sink.source(task);
+        if (splitCost == 0) {
+            observe(cost(task));
+        }
+        return pool.submit(new Job(task, System.nanoTime()));
+    }
+
+    // поиск медианы обходит всю гистограмму, поэтому выполняется не на каждом задании
+    private void observe(double cost) {
+        costs.record((long) Math.min(cost, Long.MAX_VALUE));
+        if (submitted.incrementAndGet() % MEDIAN_INTERVAL == 0) {
+            long median = costs.getValueAtPercentile(50);
+            adaptiveSplitCost = median > Long.MAX_VALUE / SPLIT_FACTOR
+                    ? Long.MAX_VALUE : Math.max(MIN_SPLIT_COST, median * SPLIT_FACTOR);
+        }
+    }
+
+    // ждёт, пока в пуле не останется ни одной задачи (в том числе чужих, если пул общий)
+    public boolean awaitQuiescence(long timeout, TimeUnit unit) {
+        return pool.awaitQuiescence(timeout, unit);
+    }
+
+    public void close() {
+        if (!ownPool) {
+            return;
+        }
+        pool.shutdown();
+        boolean interrupted = false;
+        while (!pool.isTerminated()) {
+            try {
+                pool.awaitTermination(1, TimeUnit.DAYS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    // сколько заданий было разбито на части
+    public long getSplitCount() {
+        return split.sum();
+    }
+
+    // каждая часть не дешевле порога, и их не больше половины потоков
+    private int parts(double cost, long threshold) {
+        if (!(cost > threshold)) {
+            return 1;
+        }
+        return (int) Math.min(Math.max(1, pool.getParallelism() / 2), Math.ceil(cost / threshold));
+    }
+
+    // границы частей лежат на сетке leftX + k * step, поэтому шаги интегрирования те же,
+    // что и при счёте целиком, меняется только порядок сложения
+    private static double integrate(IntegrationTask task, int parts) {
+        double left = task.getLeftX();
+        double right = task.getRightX();
+        double step = task.getStep();
+        long steps = (long) Math.ceil((right - left) / step);
+        Part[] tasks = new Part[parts];
+        for (int i = 0; i < parts; i++) {
+            double from = i == 0 ? left : left + step * (steps / parts * i);
+            double to = i == parts - 1 ? right : left + step * (steps / parts * (i + 1));
+            tasks[i] = new Part(task, from, to);
+        }
+        for (int i = 1; i < parts; i++) {
+            tasks[i].fork();
+        }
+        double result = tasks[0].compute();
+        for (int i = 1; i < parts; i++) {
+            result += tasks[i].join();
+        }
+        return result;
+    }
+
+    private static final class Part extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient IntegrationTask task;
+        private final double left;
+        private final double right;
+
+        Part(IntegrationTask task, double left, double right) {
+            this.task = task;
+            this.left = left;
+            this.right = right;
+        }
+
+        protected Double compute() {
+            return Functions.integrate(task.getFunction(), left, right, task.getStep());
+        }
+    }
+
+    private final class Job extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient IntegrationTask task;
+        private final long submitted;
+
+        Job(IntegrationTask task, long submitted) {
+            this.task = task;
+            this.submitted = submitted;
+        }
+
+        protected Double compute() {
+            double result;
+            long threshold = getSplitCost();
+            try {
+                int parts = parts(cost(task), threshold);
+                if (parts > 1) {
+                    split.increment();
+                    result = integrate(task, parts);
+                } else {
+                    result = task.integrate();
+                }
+            } catch (IllegalArgumentException e) {
+                failed.increment();
+                sink.error(task, e);
+                throw e;
+            }
+            sink.result(task, result, System.nanoTime() - submitted);
+            completed.increment();
+            return result;
+        }
+    }
+}
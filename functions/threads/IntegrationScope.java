@@ -0,0 +1,168 @@
+package functions.threads;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Структурированный запуск заданий «сгенерировать и проинтегрировать» на исполнителе.
+// Каждое задание - отдельная короткая задача вместо долгоживущего потока Generator/Integrator;
+// ни одна из них не переживает scope: join() и close() возвращаются только после того,
+// как все запущенные задачи закончились. Ошибка в любой задаче или прерывание ожидающего
+// потока отменяет все остальные - вместо «interrupt + break» в каждом потоке по отдельности.
+public class IntegrationScope implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final ResultSink sink;
+    private final Queue<Future<?>> futures = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Object lock = new Object();
+    private volatile boolean cancelled;
+    private int active;
+
+    // исполнитель не принадлежит scope и не закрывается им
+    public IntegrationScope(ExecutorService executor, ResultSink sink) {
+        this.executor = executor;
+        this.sink = sink;
+    }
+
+    // на JDK 21 и новее задачи выполняются в виртуальных потоках, на более старых -
+    // каждая одновременно выполняемая задача получает свой обычный поток
+    public static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public static boolean isVirtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // generator может блокироваться и должен реагировать на прерывание
+    public void fork(Callable<IntegrationTask> generator) {
+        if (cancelled) {
+            throw new IllegalStateException("Задания уже отменены");
+        }
+        futures.add(executor.submit(() -> run(generator)));
+    }
+
+    private void run(Callable<IntegrationTask> generator) {
+        synchronized (lock) {
+            active++;
+        }
+        try {
+            // задача могла начаться уже после отмены
+            if (cancelled) {
+                return;
+            }
+            IntegrationTask task = generator.call();
+            sink.source(task);
+            double result;
+            long start = System.nanoTime();
+            try {
+                result = task.integrate();
+            } catch (IllegalArgumentException e) {
+                failed.increment();
+                sink.error(task, e);
+                return;
+            }
+            sink.result(task, result, System.nanoTime() - start);
+            completed.increment();
+        } catch (InterruptedException e) {
+            // задача отменена
+        } catch (Throwable e) {
+            if (failure.compareAndSet(null, e)) {
+                cancel();
+            }
+        } finally {
+            synchronized (lock) {
+                if (--active == 0) {
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    // ждёт все запущенные задания; если одно из них упало, остальные отменяются,
+    // а ошибка выбрасывается отсюда
+    public void join() throws InterruptedException {
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (CancellationException | ExecutionException e) {
+                    // причина отмены, если она есть, хранится в failure
+                }
+            }
+        } catch (InterruptedException e) {
+            close();
+            throw e;
+        }
+        awaitQuiescence();
+        Throwable e = failure.get();
+        if (e != null) {
+            throw new IllegalStateException("Задание завершилось с ошибкой", e);
+        }
+    }
+
+    // ещё не начатые задания не будут выполнены, выполняющиеся прерываются
+    public void cancel() {
+        cancelled = true;
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // отменяет всё, что не успело закончиться, и дожидается выхода задач
+    public void close() {
+        cancel();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                awaitQuiescence();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitQuiescence() throws InterruptedException {
+        synchronized (lock) {
+            while (active > 0) {
+                lock.wait();
+            }
+        }
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    // задания, которые Functions.integrate отверг (например, из-за шага или границ)
+    public long getFailedCount() {
+        return failed.sum();
+    }
+}
@@ -0,0 +1,63 @@
+package functions.threads;
+
+import functions.Function;
+import functions.Functions;
+import functions.basic.Log;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Неизменяемое задание на интегрирование. В отличие от Task его можно передавать
+// между потоками через очередь без какой-либо синхронизации.
+public final class IntegrationTask {
+
+    private final Function function;
+    private final double leftX;
+    private final double rightX;
+    private final double step;
+
+    public IntegrationTask(Function function, double leftX, double rightX, double step) {
+        this.function = function;
+        this.leftX = leftX;
+        this.rightX = rightX;
+        this.step = step;
+    }
+
+    // те же распределения, что у Generator: логарифм по основанию из [1, 10),
+    // левая граница из [0, 100), правая из [100, 200), шаг из (0, 1)
+    public static IntegrationTask random(Random rnd) {
+        double base = 1.0 + 9.0 * rnd.nextDouble();
+        double left = 100.0 * rnd.nextDouble();
+        double right = 100.0 + 100.0 * rnd.nextDouble();
+        double step = rnd.nextDouble();
+        if (step == 0) step = 0.01;
+        return new IntegrationTask(new Log(base), left, right, step);
+    }
+
+    public static IntegrationTask random() {
+        return random(ThreadLocalRandom.current());
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public double getLeftX() {
+        return leftX;
+    }
+
+    public double getRightX() {
+        return rightX;
+    }
+
+    public double getStep() {
+        return step;
+    }
+
+    public double integrate() {
+        return Functions.integrate(function, leftX, rightX, step);
+    }
+
+    public String toString() {
+        return String.format("%.4f %.4f %.4f", leftX, rightX, step);
+    }
+}
@@ -1,30 +1,57 @@
 package functions.threads;
 
-import functions.Function;
-import functions.Functions;
-
 public class Integrator extends Thread {
 
     private final Task task;
     private final SemaphoreSlot semaphore;
+    private final BatchSemaphoreSlot batchSlot;
+    private final int batchSize;
+    private final ResultSink sink;
 
     public Integrator(Task task, SemaphoreSlot semaphore) {
+        this(task, semaphore, ResultSink.CONSOLE);
+    }
+
+    public Integrator(Task task, SemaphoreSlot semaphore, ResultSink sink) {
         this.task = task;
         this.semaphore = semaphore;
+        this.batchSlot = null;
+        this.batchSize = 1;
+        this.sink = sink;
+    }
+
+    // забирает из slot до batchSize заданий за раз, пока не посчитает task.getCount()
+    // заданий или пока передача не будет закрыта
+    public Integrator(Task task, BatchSemaphoreSlot slot, int batchSize) {
+        this(task, slot, batchSize, ResultSink.CONSOLE);
+    }
+
+    public Integrator(Task task, BatchSemaphoreSlot slot, int batchSize, ResultSink sink) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным");
+        }
+        this.task = task;
+        this.semaphore = null;
+        this.batchSlot = slot;
+        this.batchSize = batchSize;
+        this.sink = sink;
     }
 
     public void run() {
+        if (batchSlot != null) {
+            runBatched();
+            return;
+        }
         for (int i = 0; i < task.getCount(); i++) {
+            IntegrationTask current = null;
             try {
                 semaphore.acquireRead();
 
-                Function func = task.getFunction();
-                double left = task.getLeftX();
-                double right = task.getRightX();
-                double step = task.getStep();
+                current = new IntegrationTask(task.getFunction(), task.getLeftX(), task.getRightX(), task.getStep());
 
-                double result = Functions.integrate(func, left, right, step);
-                System.out.printf("Result %.4f %.4f %.4f %.8f%n", left, right, step, result);
+                long start = System.nanoTime();
+                double result = current.integrate();
+                sink.result(current, result, System.nanoTime() - start);
 
                 semaphore.releaseRead();
 
@@ -34,8 +61,34 @@ public class Integrator extends Thread {
                 System.out.println("Integrator прерван");
                 break;
             } catch (IllegalArgumentException e) {
-                System.out.println("Ошибка интегрирования: " + e.getMessage());
+                sink.error(current, e);
+            }
+        }
+    }
+
+    private void runBatched() {
+        IntegrationTask[] batch = new IntegrationTask[batchSize];
+        try {
+            int done = 0;
+            while (done < task.getCount()) {
+                int n = batchSlot.drain(batch, Math.min(batchSize, task.getCount() - done));
+                if (n == 0) {
+                    break;
+                }
+                for (int j = 0; j < n; j++) {
+                    try {
+                        long start = System.nanoTime();
+                        double result = batch[j].integrate();
+                        sink.result(batch[j], result, System.nanoTime() - start);
+                    } catch (IllegalArgumentException e) {
+                        sink.error(batch[j], e);
+                    }
+                    batch[j] = null;
+                }
+                done += n;
             }
+        } catch (InterruptedException e) {
+            System.out.println("Integrator прерван");
         }
     }
 }
@@ -0,0 +1,43 @@
+package functions.threads;
+
+// Получатель событий генератора и интегратора вместо печати каждого из них.
+// Методы вызываются из нескольких потоков сразу, поэтому реализации должны быть потокобезопасными.
+public interface ResultSink {
+
+    // печатает события так же, как раньше это делали Generator и Integrator
+    ResultSink CONSOLE = new ResultSink() {
+        public void source(IntegrationTask task) {
+            System.out.println("Source " + task);
+        }
+
+        public void result(IntegrationTask task, double result, long nanos) {
+            System.out.printf("Result %s %.8f%n", task, result);
+        }
+
+        public void error(IntegrationTask task, IllegalArgumentException e) {
+            System.out.println("Ошибка интегрирования: " + e.getMessage());
+        }
+    };
+
+    // отбрасывает всё; для измерений, где важна только скорость
+    ResultSink NO_OP = new ResultSink() {
+        public void source(IntegrationTask task) {
+        }
+
+        public void result(IntegrationTask task, double result, long nanos) {
+        }
+
+        public void error(IntegrationTask task, IllegalArgumentException e) {
+        }
+    };
+
+    // задание создано генератором
+    void source(IntegrationTask task);
+
+    // задание посчитано; nanos - время самого интегрирования
+    // (у IntegrationScheduler - вместе с ожиданием в очереди)
+    void result(IntegrationTask task, double result, long nanos);
+
+    // Functions.integrate отверг задание
+    void error(IntegrationTask task, IllegalArgumentException e);
+}
@@ -7,10 +7,16 @@ import java.util.Random;
 public class SimpleGenerator implements Runnable {
 
     private final Task task;
+    private final ResultSink sink;
     private final Random rnd = new Random();
 
     public SimpleGenerator(Task task) {
+        this(task, ResultSink.CONSOLE);
+    }
+
+    public SimpleGenerator(Task task, ResultSink sink) {
         this.task = task;
+        this.sink = sink;
     }
 
     public void run() {
@@ -30,7 +36,7 @@ public class SimpleGenerator implements Runnable {
                 if (step == 0) step = 0.01;
                 task.setStep(step);
 
-                System.out.printf("Source %.4f %.4f %.4f%n", left, right, step);
+                sink.source(new IntegrationTask(logFunc, left, right, step));
             }
 
             try { Thread.sleep(1); } catch (InterruptedException ignored) {}
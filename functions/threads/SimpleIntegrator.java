@@ -1,33 +1,33 @@
 package functions.threads;
 
-import functions.Function;
-import functions.Functions;
-
 public class SimpleIntegrator implements Runnable {
 
     private final Task task;
+    private final ResultSink sink;
 
     public SimpleIntegrator(Task task) {
+        this(task, ResultSink.CONSOLE);
+    }
+
+    public SimpleIntegrator(Task task, ResultSink sink) {
         this.task = task;
+        this.sink = sink;
     }
 
     public void run() {
         for (int i = 0; i < task.getCount(); i++) {
-            double left, right, step;
-            Function func;
+            IntegrationTask current;
 
             synchronized (task) {
-                func = task.getFunction();
-                left = task.getLeftX();
-                right = task.getRightX();
-                step = task.getStep();
+                current = new IntegrationTask(task.getFunction(), task.getLeftX(), task.getRightX(), task.getStep());
             }
 
             try {
-                double result = Functions.integrate(func, left, right, step);
-                System.out.printf("Result %.4f %.4f %.4f %.8f%n", left, right, step, result);
+                long start = System.nanoTime();
+                double result = current.integrate();
+                sink.result(current, result, System.nanoTime() - start);
             } catch (IllegalArgumentException e) {
-                System.out.println("Ошибка интегрирования: " + e.getMessage());
+                sink.error(current, e);
             }
 
             try { Thread.sleep(1); } catch (InterruptedException ignored) {}